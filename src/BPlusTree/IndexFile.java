@@ -0,0 +1,52 @@
+package BPlusTree;
+
+import Exceptions.IllegalOperationException;
+import storageManager.Attribute;
+
+import java.io.IOException;
+
+/**
+ * A file of B+ tree nodes, one node per page with the root at node 0. A table's primary key index and each of its
+ * secondary indexes is one. Keys are compared with Attribute.compareTo on their data
+ */
+public interface IndexFile {
+
+    TreeNode readNode(int nodeNumber) throws IllegalOperationException;
+
+    void writeNode(TreeNode node) throws IOException, IllegalOperationException;
+
+    /**
+     * Number of keys that splits a node, nodes hold at most one fewer
+     * @return order of the tree
+     */
+    int getN();
+
+    int getNumNodes();
+
+    void setNumNodes(int numNodes);
+
+    int getNodeHeaderSpace();
+
+    /**
+     * Throw away every node, leaving an empty file for a new tree to be built in
+     */
+    void clearIndex();
+
+    /**
+     * Key to descend the tree with to reach the first key whose value is at least a value
+     * @param value value of the attribute the tree is on
+     * @return search key
+     */
+    default Object getSearchKey(Object value) {
+        return value;
+    }
+
+    /**
+     * Value of the attribute the tree is on that a key holds
+     * @param key key of a leaf
+     * @return attribute value
+     */
+    default Object getKeyValue(Attribute key) {
+        return key.getData();
+    }
+}
@@ -0,0 +1,93 @@
+package BPlusTree;
+
+import Exceptions.IllegalOperationException;
+import storageManager.Attribute;
+import storageManager.KeyRange;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the keys in a range and their indices, in key order. It descends the tree once to the leaf of the
+ * low end, or the leftmost leaf without one, then follows the leaf chain until a key is past the high end. The range
+ * is over the values of the attribute the tree is on.
+ */
+public class RangeIterator implements Iterator<Index> {
+    private final IndexFile table;
+    private final KeyRange range;
+    private TreeNode leaf;
+    private int position;
+    private boolean done;
+    private Attribute lastKey;
+
+    public RangeIterator(IndexFile table, KeyRange range) throws IllegalOperationException {
+        this.table = table;
+        this.range = range;
+        TreeNode root = table.readNode(0);
+        if (range.getLow() != null) {
+            this.leaf = root.find(table.getSearchKey(range.getLow()), root.nodeNumber);
+        } else {
+            this.leaf = root;
+            while (!this.leaf.isLeaf && !this.leaf.getIndices().isEmpty()) {
+                this.leaf = table.readNode(this.leaf.getIndices().get(0).pageNumber);
+            }
+        }
+        this.done = range.isEmpty();
+        advance();
+    }
+
+    /**
+     * Move to the next key in the range, following the leaf chain when a leaf runs out
+     */
+    private void advance() {
+        try {
+            while (!this.done) {
+                if (this.position == this.leaf.getSearchKeys().size()) {
+                    if (this.leaf.nextNode == -1) {
+                        this.done = true;
+                        return;
+                    }
+                    this.leaf = this.table.readNode(this.leaf.nextNode);
+                    this.position = 0;
+                    continue;
+                }
+                Object key = this.table.getKeyValue(this.leaf.getSearchKeys().get(this.position));
+                if (this.range.isAbove(key)) {
+                    this.done = true;
+                } else if (this.range.isBelow(key)) {
+                    this.position++;
+                } else {
+                    return;
+                }
+            }
+        } catch (IllegalOperationException e) {
+            System.err.println(e.getMessage());
+            this.done = true;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !this.done;
+    }
+
+    @Override
+    public Index next() {
+        if (this.done) {
+            throw new NoSuchElementException();
+        }
+        Index index = this.leaf.getIndices().get(this.position);
+        this.lastKey = this.leaf.getSearchKeys().get(this.position);
+        this.position++;
+        advance();
+        return index;
+    }
+
+    /**
+     * Key of the index last returned by next
+     * @return the key
+     */
+    public Attribute getLastKey() {
+        return this.lastKey;
+    }
+}
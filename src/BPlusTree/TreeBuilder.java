@@ -0,0 +1,175 @@
+package BPlusTree;
+
+import Exceptions.IllegalOperationException;
+import storageManager.Attribute;
+
+import java.util.Arrays;
+
+/**
+ * Builds a table's B+ tree bottom-up from keys given in ascending order. The shape of every level is planned
+ * from the number of keys up front, so each node is written once, when it is full, with its parent, next node
+ * and keys already known. Only the node being filled on each level is held in memory.
+ */
+public class TreeBuilder {
+    private final IndexFile table;
+    private final int numKeys;
+    // number of keys of each leaf, then number of children of each node on every level above it
+    private final int[][] levels;
+    // number of the first node on each level, the single node of the top level is the root, node 0
+    private final int[] firstNode;
+    private final int totalNodes;
+
+    // node being filled on each level, its position on the level and how many keys or children it has so far
+    private final TreeNode[] openNodes;
+    private final int[] positions;
+    private final int[] filled;
+    private int added;
+    private Object lastKey;
+
+    /**
+     * Start building a tree, throwing away the one the index file has
+     * @param table      index file to build the tree in
+     * @param numKeys    number of keys that will be added
+     * @param fillFactor fraction of each node to fill, leaving room for later inserts
+     */
+    public TreeBuilder(IndexFile table, int numKeys, double fillFactor) {
+        this.table = table;
+        this.numKeys = numKeys;
+
+        int maxKeys = Math.max(table.getN() - 1, 1);
+        // smallest node that is not underfull
+        int minKeys = Math.max((int) Math.ceil(table.getN() / 2.0) - 1, 1);
+        int leafSize = Math.min(Math.max((int) (maxKeys * fillFactor), minKeys), maxKeys);
+        int fanout = Math.min(Math.max((int) ((maxKeys + 1) * fillFactor), minKeys + 1), maxKeys + 1);
+
+        int numLevels = 1;
+        int[][] plan = new int[32][];
+        plan[0] = divide(numKeys, leafSize, minKeys);
+        while (plan[numLevels - 1].length > 1) {
+            plan[numLevels] = divide(plan[numLevels - 1].length, fanout, minKeys + 1);
+            numLevels++;
+        }
+        this.levels = new int[numLevels][];
+        this.firstNode = new int[numLevels];
+        int nextNode = 1;
+        for (int level = 0; level < numLevels; level++) {
+            this.levels[level] = plan[level];
+            this.firstNode[level] = level == numLevels - 1 ? 0 : nextNode;
+            nextNode += plan[level].length;
+        }
+        this.totalNodes = nextNode - 1;
+
+        this.openNodes = new TreeNode[numLevels];
+        this.positions = new int[numLevels];
+        this.filled = new int[numLevels];
+        Arrays.fill(this.positions, -1);
+
+        table.clearIndex();
+    }
+
+    /**
+     * Split a number of entries as evenly as possible into nodes of about a target size, using fewer nodes when
+     * the target would leave them underfull
+     * @return number of entries of each node
+     */
+    private static int[] divide(int entries, int target, int minimum) {
+        int numNodes = Math.max((entries + target - 1) / target, 1);
+        if (numNodes > 1 && entries / numNodes < minimum) {
+            numNodes = Math.max(entries / minimum, 1);
+        }
+        int[] sizes = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            sizes[i] = entries / numNodes + (i < entries % numNodes ? 1 : 0);
+        }
+        return sizes;
+    }
+
+    private int nodeNumber(int level, int position) {
+        return this.firstNode[level] + position;
+    }
+
+    /**
+     * Add the next key of the tree
+     * @param key   primary key, larger than every key added before it
+     * @param index where the record of the key is
+     * @throws IllegalOperationException more keys than planned, or a key out of order
+     */
+    public void add(Attribute key, Index index) throws IllegalOperationException {
+        if (this.added == this.numKeys) {
+            throw new IllegalOperationException("Tried to add more than " + this.numKeys + " keys to the index");
+        }
+        if (this.lastKey != null && Attribute.compareTo(this.lastKey, key.getData()) >= 0) {
+            throw new IllegalOperationException("Index keys must be added in ascending order");
+        }
+        if (this.positions[0] == -1 || this.filled[0] == this.levels[0][this.positions[0]]) {
+            startNode(0, key);
+        }
+        TreeNode leaf = this.openNodes[0];
+        leaf.addKey(key);
+        leaf.addIndex(index);
+        this.filled[0]++;
+        this.added++;
+        this.lastKey = key.getData();
+    }
+
+    /**
+     * Write the node being filled on a level and start the next one. The next node's first key separates it
+     * from the node before it in the lowest ancestor they do not share
+     * @param level level of the node
+     * @param key   first key under the new node
+     */
+    private void startNode(int level, Attribute key) {
+        if (this.openNodes[level] != null) {
+            this.openNodes[level].writeNode();
+        }
+        int position = ++this.positions[level];
+        this.filled[level] = 0;
+        TreeNode node = new TreeNode(this.table, nodeNumber(level, position), level == 0);
+        if (level == 0 && position + 1 < this.levels[0].length) {
+            node.nextNode = nodeNumber(0, position + 1);
+        }
+        this.openNodes[level] = node;
+
+        int parentLevel = level + 1;
+        if (parentLevel == this.levels.length) {
+            return;
+        }
+        if (this.positions[parentLevel] == -1
+                || this.filled[parentLevel] == this.levels[parentLevel][this.positions[parentLevel]]) {
+            startNode(parentLevel, key);
+        } else {
+            this.openNodes[parentLevel].addKey(key);
+        }
+        TreeNode parent = this.openNodes[parentLevel];
+        parent.addIndex(new Index(node.nodeNumber, -1));
+        this.filled[parentLevel]++;
+        node.parent = parent.nodeNumber;
+    }
+
+    /**
+     * Write the last node of every level
+     * @throws IllegalOperationException fewer keys were added than planned
+     */
+    public void finish() throws IllegalOperationException {
+        if (this.added != this.numKeys) {
+            throw new IllegalOperationException("Index expected " + this.numKeys + " keys but was given " + this.added);
+        }
+        if (this.numKeys == 0) {
+            new TreeNode(this.table, 0, true).writeNode();
+        }
+        for (TreeNode node : this.openNodes) {
+            if (node != null) {
+                node.writeNode();
+            }
+        }
+        this.table.setNumNodes(this.totalNodes);
+    }
+
+    /**
+     * Number of keys added so far
+     * @return keys added
+     */
+    public int getNumAdded() {
+        return this.added;
+    }
+}
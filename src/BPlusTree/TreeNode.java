@@ -3,12 +3,10 @@ package BPlusTree;
 import Exceptions.IllegalOperationException;
 import catalog.Catalog;
 import storageManager.Attribute;
-import storageManager.Table;
+import storageManager.Page;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,11 +18,11 @@ public class TreeNode {
     public boolean isLeaf;
     public int nodeNumber;
     private int freeSpaceAmount;
-    private final Table table;
+    private final IndexFile table;
     private boolean wasUpdated;
 
     // Node constructor
-    public TreeNode(Table table, boolean isLeaf) {
+    public TreeNode(IndexFile table, boolean isLeaf) {
         this.table = table;
         this.searchKeys = new ArrayList<>();
         this.indices = new ArrayList<>();
@@ -36,7 +34,7 @@ public class TreeNode {
         this.update();
     }
 
-    public TreeNode(Table table, int nodeNumber, boolean isLeaf) {
+    public TreeNode(IndexFile table, int nodeNumber, boolean isLeaf) {
         this.table = table;
         this.searchKeys = new ArrayList<>();
         this.indices = new ArrayList<>();
@@ -47,6 +45,22 @@ public class TreeNode {
         this.update();
     }
 
+    /**
+     * Copy a node, so changes to the copy are not seen until it is written
+     * @return node with the same keys and indices
+     */
+    public TreeNode copy() {
+        TreeNode copy = new TreeNode(table, nodeNumber, isLeaf);
+        copy.nextNode = nextNode;
+        copy.parent = parent;
+        copy.searchKeys.addAll(searchKeys);
+        for (Index index : indices) {
+            copy.indices.add(new Index(index.pageNumber, index.recordPointer));
+        }
+        copy.update();
+        return copy;
+    }
+
     /**
      * function to find the TreeNode that is a leaf where the value is supposed to
      * be found. it's possible that the value is not on the node. this function is
@@ -109,7 +123,7 @@ public class TreeNode {
             return null;
         }
 
-        if (node.searchKeys.size() + 1 == this.table.N) {
+        if (node.searchKeys.size() + 1 == this.table.getN()) {
 
             insertToNode(node, value, index, false);
             divideNode(node);
@@ -120,6 +134,24 @@ public class TreeNode {
         return node;
     }
 
+    /**
+     * function to change where a value in the B+ Tree points to without restructuring the tree
+     *
+     * @param value the value to update, inserted if the tree does not have it
+     * @param index the new place of the value
+     */
+    public void updateIndex(Attribute value, Index index) throws IllegalOperationException {
+        TreeNode node = find(value.getData(), this.nodeNumber);
+        int valueIndex = node.getValueIndex(value.getData());
+        if (valueIndex == -1) {
+            insert(value, index);
+            return;
+        }
+        node.indices.set(valueIndex, index);
+        node.update();
+        node.writeNode();
+    }
+
     private void insertToNode(TreeNode node, Attribute value, Index index, boolean isRight) {
         if (node.searchKeys.size() == 0) {
             node.addKey(value);
@@ -198,8 +230,9 @@ public class TreeNode {
             if (node.isLeaf)
                 newLeftNode.nextNode = newRightNode.nodeNumber;
 
-            // get copy the pointers of node into new nodes
-            int keysDivision = node.indices.size() / 2;
+            // get copy the pointers of node into new nodes, a leaf keeps a pointer for each of its keys and an
+            // inner node one more than its keys
+            int keysDivision = node.isLeaf ? lowestNodeSize - 1 : lowestNodeSize;
             for (int i = 0; i < keysDivision; i++) {
                 // copy pointers in newNode1
                 if (!node.isLeaf) {
@@ -238,9 +271,11 @@ public class TreeNode {
             TreeNode newRightNode = new TreeNode(table, node.isLeaf);
 
             int lowestNodeSize = (int) Math.ceil(node.searchKeys.size() / 2.0);
+            // the last lowestNodeSize keys move, with an even number of keys the middle is not the start of them
+            int valuesDivision = node.searchKeys.size() - lowestNodeSize;
             for (int i = 0; i < lowestNodeSize; i++) {
                 // copy values in newNode so:
-                newRightNode.addKey(node.removeKey(lowestNodeSize - 1));
+                newRightNode.addKey(node.removeKey(valuesDivision));
             }
 
             newRightNode.parent = node.parent;
@@ -249,7 +284,7 @@ public class TreeNode {
             node.nextNode = newRightNode.nodeNumber; // have node point to newNode
 
             // copy the keys of node into newNode so: newNode = node[keyDiv:]
-            int keysDivision = node.indices.size() / 2;
+            int keysDivision = node.indices.size() - lowestNodeSize;
             for (int i = 0; i < lowestNodeSize; i++) {
                 // copy keys in newNode
                 if (!node.isLeaf) {
@@ -272,7 +307,7 @@ public class TreeNode {
             node.writeNode();
             newRightNode.writeNode();
 
-            if (parent.searchKeys.size() == this.table.N) {
+            if (parent.searchKeys.size() == this.table.getN()) {
                 divideNode(parent);
             } else {
                 parent.writeNode();
@@ -338,6 +373,26 @@ public class TreeNode {
         return true;
     }
 
+    /**
+     * function to delete a value from its leaf without merging or borrowing. the keys
+     * of the inner nodes still divide the leaves correctly, so leaves are allowed to
+     * be underfull or empty
+     *
+     * @param value the specified value that will be deleted
+     * @return true if the value was in the tree
+     */
+    public boolean removeFromLeaf(Object value) throws IllegalOperationException {
+        TreeNode node = find(value, this.nodeNumber);
+        int index = node.getValueIndex(value);
+        if (index == -1) {
+            return false;
+        }
+        node.removeKey(index);
+        node.removeIndex(index);
+        node.writeNode();
+        return true;
+    }
+
     /**
      * Checks if the node has enough children/values and fixes it
      *
@@ -433,7 +488,7 @@ public class TreeNode {
             rightSibling = table.readNode(parent.indices.get(nodeIndex + 1).pageNumber);
         }
         // when I do size checking it may leave the node unable to merge or borrow
-        if (leftSibling != null && leftSibling.searchKeys.size() + node.searchKeys.size() < table.N) {
+        if (leftSibling != null && leftSibling.searchKeys.size() + node.searchKeys.size() < table.getN()) {
             leftSibling.addAllKeys(node.searchKeys);
             leftSibling.addAllIndices(node.indices);
             // inner node
@@ -463,7 +518,7 @@ public class TreeNode {
             return leftSibling.nodeNumber;
         }
         // merge with right sibling
-        else if (rightSibling != null && rightSibling.searchKeys.size() + node.searchKeys.size() < table.N) {
+        else if (rightSibling != null && rightSibling.searchKeys.size() + node.searchKeys.size() < table.getN()) {
 
             int rightSiblingOriginalNum = parent.getValueIndex(rightSibling.searchKeys.get(0).getData());
             if (rightSiblingOriginalNum == -1) {
@@ -544,7 +599,7 @@ public class TreeNode {
         }
 
         if (leftSibling != null && nodeIndex > 0 && leftSibling.searchKeys
-                .size() > (Math.ceil((double) this.table.N / 2.0) - 1)) {
+                .size() > (Math.ceil((double) this.table.getN() / 2.0) - 1)) {
             Attribute borrowedValue = leftSibling.removeKey(leftSibling.searchKeys.size() - 1);
             Index borrowedIndex = leftSibling.removeIndex(leftSibling.indices.size() - 1);
             leftSibling.writeNode();
@@ -557,7 +612,7 @@ public class TreeNode {
         else if (rightSibling != null && parent.indices.size() > 1
                 && nodeIndex < parent.indices.size() - 1
                 && rightSibling.searchKeys
-                .size() > (Math.ceil((double) this.table.N / 2.0) - 1)) {
+                .size() > (Math.ceil((double) this.table.getN() / 2.0) - 1)) {
 
             Attribute borrowedValue = rightSibling.removeKey(0);
             Index borrowedIndex = rightSibling.removeIndex(0);
@@ -586,7 +641,7 @@ public class TreeNode {
         if (this.parent == -1)
             return this.searchKeys.size() < 1;
         else
-            return this.searchKeys.size() < Math.ceil(((double) this.table.N) / 2.0) - 1;
+            return this.searchKeys.size() < Math.ceil(((double) this.table.getN()) / 2.0) - 1;
     }
 
     /**
@@ -595,11 +650,11 @@ public class TreeNode {
      * @return true or false if the node has enough children
      */
     private boolean isChildless() {
-        return this.indices.size() < Math.floor((double) this.table.N / 2.0) + 1;
+        return this.indices.size() < Math.floor((double) this.table.getN() / 2.0) + 1;
     }
 
-    private static boolean checkChildless(int num, Table table) {
-        return num < Math.floor((double) table.N / 2.0) + 1;
+    private static boolean checkChildless(int num, IndexFile table) {
+        return num < Math.floor((double) table.getN() / 2.0) + 1;
     }
 
     private boolean contains(Object attribute) {
@@ -703,48 +758,46 @@ public class TreeNode {
         return this.freeSpaceAmount;
     }
 
-    public byte[] serializeNode() throws IOException, IllegalOperationException {
+    /**
+     * Write this node into a buffer of one page: number of keys | number of indices | is leaf | next node |
+     * parent | keys | indices (page | record)[] | free space
+     * @param buffer buffer holding at least a page, written from offset 0
+     * @throws IllegalOperationException node does not fit in a page
+     */
+    public void serializeNode(ByteBuffer buffer) throws IllegalOperationException {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        if (getFreeSpaceAmount() < 0) {
+            throw new IllegalOperationException("Tried to write index page of size " + (pageSize - getFreeSpaceAmount()) + " bytes which is not the defined page size");
+        }
         int numKeys = searchKeys.size();
         int numIndices = indices.size();
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataOutputStream dos = new DataOutputStream(baos);
-        dos.writeInt(numKeys);
-        dos.writeInt(numIndices);
-        dos.writeBoolean(isLeaf);
-        dos.writeInt(nextNode);
-        dos.writeInt(parent);
+        buffer.putInt(0, numKeys);
+        buffer.putInt(4, numIndices);
+        buffer.put(8, (byte) (isLeaf ? 1 : 0));
+        buffer.putInt(9, nextNode);
+        buffer.putInt(13, parent);
+        int position = 17;
         for (int i = 0; i < numKeys; i++) {
-            Attribute key = searchKeys.get(i);
-            key.serialize(dos);
+            position += searchKeys.get(i).serialize(buffer, position);
         }
         for (int i = 0; i < numIndices; i++) {
-            dos.writeInt(indices.get(i).pageNumber);
-            dos.writeInt(indices.get(i).recordPointer);
+            buffer.putInt(position, indices.get(i).pageNumber);
+            buffer.putInt(position + 4, indices.get(i).recordPointer);
+            position += 8;
         }
-        for (int i = 0; i < getFreeSpaceAmount(); i++) {
-            dos.writeByte(0);
+        if (position + getFreeSpaceAmount() != pageSize) {
+            throw new IllegalOperationException("Tried to write index page of size " + (position + getFreeSpaceAmount()) + " bytes which is not the defined page size");
         }
-        dos.flush();
-        return baos.toByteArray();
+        Page.fillZeroes(buffer, position, getFreeSpaceAmount());
     }
 
     /**
-     * Write a node to file
+     * Write a node to its table
      */
     public void writeNode() {
         if (!this.wasUpdated) return;
         try {
-            String location = table.schema.getNodeLocation();
-            Catalog catalog = Catalog.getCatalog();
-            RandomAccessFile file = new RandomAccessFile(location, "rw");
-            long offset = getNodeNumber() * Catalog.getCatalog().getPageSize();
-            byte[] nodeData = serializeNode();
-            if (nodeData.length != catalog.getPageSize()) {
-                throw new IllegalOperationException("Tried to write index page of size " + nodeData.length + " bytes which is not the defined page size");
-            }
-            file.seek(offset);
-            file.write(nodeData);
-            file.close();
+            table.writeNode(this);
         } catch (IOException | IllegalOperationException error) {
             System.err.println(error.getMessage());
         }
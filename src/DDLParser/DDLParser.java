@@ -76,7 +76,11 @@ public class DDLParser {
      * @param tableName the name of the Table to drop
      */
     public void dropTable(Catalog catalog, String tableName) throws NoTableException, IllegalOperationException {
-        deleteAllRecords(tableName);
+        TableSchema tableSchema = catalog.getTableSchema(tableName);
+        if (tableSchema == null) {
+            throw new NoTableException(tableName);
+        }
+        StorageManager.GetStorageManager().dropTable(tableSchema.getTableId());
         catalog.removeTableSchema(tableName);
     }
 
@@ -120,6 +124,7 @@ public class DDLParser {
 
                 // look for a attribute that shares the name and replace it
                 if (tableSchema.getAttributeSchema(instruc.get(0)) != null) {
+                    dropAttributeIndex(tableSchema, instruc.get(0));
                     tableSchema.removeAttributeSchema(instruc.get(0));
                 }
                 tableSchema.addAttributeSchema(newAttributes);
@@ -127,6 +132,7 @@ public class DDLParser {
                 break;
             case "drop":
                 if (tableSchema.getAttributeSchema(attributes[1]) != null) {
+                    dropAttributeIndex(tableSchema, attributes[1]);
                     updateAttributes(tableName, tableSchema.getAttributeSchema(attributes[1]), null,"remove");
                     tableSchema.removeAttributeSchema(attributes[1]);
                 }
@@ -136,6 +142,49 @@ public class DDLParser {
         }
     }
 
+    /**
+     * contacts the Catalog and Storage Manager
+     * to create a secondary index on an attribute of a Table,
+     * or a hash index on its primary key
+     *
+     * @param tableName     the name of the Table
+     * @param attributeName the name of the attribute to index
+     * @param hash          whether the index is a hash index
+     */
+    public void createIndex(Catalog catalog, String tableName, String attributeName, boolean hash) throws NoTableException, IllegalOperationException {
+        TableSchema tableSchema = catalog.getTableSchema(tableName);
+        if (tableSchema == null) {
+            throw new NoTableException(tableName);
+        }
+        if (hash) {
+            StorageManager.GetStorageManager().createHashIndex(tableSchema.getTableId(), attributeName);
+        } else {
+            StorageManager.GetStorageManager().createIndex(tableSchema.getTableId(), attributeName);
+        }
+    }
+
+    /**
+     * contacts the Catalog and Storage Manager
+     * to drop the index of an attribute of a Table
+     *
+     * @param tableName     the name of the Table
+     * @param attributeName the name of the indexed attribute
+     */
+    public void dropIndex(Catalog catalog, String tableName, String attributeName) throws NoTableException, IllegalOperationException {
+        TableSchema tableSchema = catalog.getTableSchema(tableName);
+        if (tableSchema == null) {
+            throw new NoTableException(tableName);
+        }
+        StorageManager.GetStorageManager().dropIndex(tableSchema.getTableId(), attributeName);
+    }
+
+    // an attribute leaving the table takes its index with it
+    private void dropAttributeIndex(TableSchema tableSchema, String attributeName) throws NoTableException, IllegalOperationException {
+        if (tableSchema.isIndexed(tableSchema.getAttributeSchema(attributeName))) {
+            StorageManager.GetStorageManager().dropIndex(tableSchema.getTableId(), attributeName);
+        }
+    }
+
     private void updateAttributes(String tableName, AttributeSchema attributeSchema, String defaultValue, String action)
             throws NoTableException, PageOverfullException, DuplicateKeyException, IllegalOperationException {
         var storageManager = StorageManager.GetStorageManager();
@@ -157,16 +206,6 @@ public class DDLParser {
         }
     }
 
-    private void deleteAllRecords(String tableName) throws NoTableException, IllegalOperationException {
-        var storageManager = StorageManager.GetStorageManager();
-        var tableId = Catalog.getCatalog().getTableSchema(tableName).getTableId();
-        var allRecords = storageManager.getAllRecords(tableId);
-
-        for (Record record : allRecords) {
-            storageManager.deleteRecord(tableId, record.getPrimaryKey());
-        }
-    }
-
     private Object stringToType(String str, AttributeType type) {
         if (Objects.equals(str, "null")) {
             return null;
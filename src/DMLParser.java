@@ -4,7 +4,15 @@ import java.util.stream.Collectors;
 
 import Exceptions.*;
 import WhereParser.Nodes.BoolOpNode;
+import WhereParser.JoinPlanner;
+import WhereParser.QueryPlanner;
 import WhereParser.TokenParser.Parser;
+import queryExecutor.Filter;
+import queryExecutor.HashJoin;
+import queryExecutor.Operator;
+import queryExecutor.Project;
+import queryExecutor.Sort;
+import queryExecutor.TableScan;
 import catalog.AttributeSchema;
 import catalog.AttributeType;
 import catalog.Catalog;
@@ -38,44 +46,42 @@ public class DMLParser {
         return records;
     }
 
+    /**
+     * Get the records of a table that can satisfy a where clause, read the way the query planner picks from the
+     * clause's predicates on the primary key. The clause still has to be evaluated on each of them
+     * @param schema    schema of the table
+     * @param tableName name of the table
+     * @param where     parsed where clause, null for every record
+     * @return the records, null if there is no such table
+     */
+    public ArrayList<Record> getRecords(TableSchema schema, String tableName, BoolOpNode where) {
+        if (schema == null || where == null) {
+            return getAllRecords(schema, tableName);
+        }
+        try {
+            return new QueryPlanner(schema).getRecords(this.storageManager, where);
+        } catch (NoTableException | IllegalOperationException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+    }
+
     public void select(ArrayList<String> selectArgs, ArrayList<String> fromArgs, String where, String orderByColumn) throws Exception {
         ArrayList<TableSchema> schemaList = new ArrayList<>();
-        ArrayList<ArrayList<Record>> tableRecords = new ArrayList<>();
+        BoolOpNode head = where != null ? Parser.parseWhere(where) : null;
 
-        // Retrieve copies of schemas and their records
+        // Retrieve copies of schemas
         for (String tableName : fromArgs) {
             TableSchema schema = Catalog.getCatalog().getTableSchema(tableName);
             if (schema == null) {
                 throw new NoTableException(tableName);
             }
-            schema = schema.clone();
-            schemaList.add(schema);
-            tableRecords.add(getAllRecords(schema, tableName));
+            schemaList.add(schema.clone());
         }
 
-        if (tableRecords.isEmpty())
+        if (schemaList.isEmpty())
             return;
 
-        // Get records with attributes of format table.attributeName
-        ArrayList<Record> records;
-        if (tableRecords.size() == 1) {
-            records = new ArrayList<>();
-            for (Record record : tableRecords.get(0)) {
-                Record recordClone = record.clone();
-                for (Attribute attr : recordClone.getAttributes()) {
-                    if (!attr.getAttributeName().contains(".")) {
-                        String prefixedName = fromArgs.get(0) + "." + attr.getAttributeName();
-                        recordClone.removeAttribute(attr.getAttributeName());
-                        attr.setAttributeName(prefixedName);
-                        recordClone.setAttribute(prefixedName, attr);
-                    }
-                }
-                records.add(recordClone);
-            }
-        } else {
-            records = crossProduct(tableRecords, fromArgs, 0, null);
-        }
-
         boolean selectAll = false;
 
         if (selectArgs.get(0).equals("*") && selectArgs.size() == 1) {
@@ -133,6 +139,7 @@ public class DMLParser {
             }
         }
 
+        String orderByName = null;
         if (orderByColumn != null && !orderByColumn.isEmpty()) {
             if (orderByColumn.contains(".")) {
                 boolean columnExists = selectAttributes.stream()
@@ -140,14 +147,7 @@ public class DMLParser {
                 if (!columnExists) {
                     throw new Exception("OrderBy column " + orderByColumn + " not found");
                 }
-                records.sort((record1, record2) -> {
-                    for (AttributeSchema attributeSchema : selectAttributes) {
-                        if (attributeSchema.getAttributeName().equals(orderByColumn)) {
-                            return record1.getAttribute(orderByColumn).compareTo(record2.getAttribute(orderByColumn));
-                        }
-                    }
-                    return 0;
-                });
+                orderByName = orderByColumn;
             } else {
                 List<AttributeSchema> matchingColumns = selectAttributes.stream()
                         .filter(attr -> attr.getAttributeName().endsWith(orderByColumn))
@@ -158,115 +158,82 @@ public class DMLParser {
                 } else if (matchingColumns.size() != 1) {
                     throw new Exception("OrderBy column " + orderByColumn + " is ambiguous");
                 }
-                String matchingColumnName = matchingColumns.get(0).getAttributeName();
-                records.sort((record1, record2) -> {
-                    for (AttributeSchema attributeSchema : selectAttributes) {
-                        if (attributeSchema.getAttributeName().endsWith(matchingColumnName)) {
-                            String attrName = attributeSchema.getAttributeName();
-                            return record1.getAttribute(attrName).compareTo(record2.getAttribute(attrName));
-                        }
-                    }
-                    return 0;
-                });
+                orderByName = matchingColumns.get(0).getAttributeName();
             }
         }
 
-        // print out the tuples
-        if (where != null) {
-            BoolOpNode head = Parser.parseWhere(where);
-            if (selectAll) {
-                for (Record record : records) {
-                    boolean pass = head.evaluate(record);
-                    if (pass) {
-                        System.out.println("");
-                        for (TableSchema schema : schemaList) {
-                            for (AttributeSchema attributeSchema : schema.getAttributeSchema()) {
-                                var attr = record.getAttribute(attributeSchema.getAttributeName());
-                                System.out.print(attr.getData() + "   ");
-                            }
-                        }
-                    }
-                }
-                System.out.println("");
-            } else {
-                for (Record record : records) {
-                    boolean pass = head.evaluate(record);
-                    if (pass) {
-                        System.out.println("");
-                        for (AttributeSchema attributeSchema : selectAttributes) {
-                            Attribute attr = record.getAttribute(attributeSchema.getAttributeName());
-                            System.out.print(attr.getData() + "   ");
-                        }
-                    }
-                }
-                System.out.println("");
+        // Build the operator tree records are pulled through, with attributes of format table.attributeName.
+        // Records only keep the attributes that are selected or in the where clause
+        JoinPlanner joinPlanner = new JoinPlanner(schemaList, head);
+        HashSet<String> usedNames = joinPlanner.getClauseAttributes();
+        if (usedNames != null) {
+            for (AttributeSchema attributeSchema : selectAttributes) {
+                usedNames.add(attributeSchema.getAttributeName());
             }
-
-        } else { // no where
-            if (selectAll) {
-                for (Record record : records) {
-                    System.out.println("");
-                    for (TableSchema schema : schemaList) {
-                        for (AttributeSchema attributeSchema : schema.getAttributeSchema()) {
-                            var attr = record.getAttribute(attributeSchema.getAttributeName());
-                            System.out.print(attr.getData() + "   ");
-                        }
-                    }
-                }
-                System.out.println("");
-            } else {
-                for (Record record : records) {
-                    System.out.println("");
-                    for (AttributeSchema attributeSchema : selectAttributes) {
-                        Attribute attr = record.getAttribute(attributeSchema.getAttributeName());
-                        System.out.print(attr.getData() + "   ");
-                    }
+        }
+        Operator root;
+        if (schemaList.size() == 1) {
+            root = new TableScan(this.storageManager, schemaList.get(0), fromArgs.get(0), head, usedNames);
+        } else {
+            // each table is read and filtered with the part of the clause on only its attributes, then hash
+            // joined on its equi-join predicates, only the rest of the clause is left
+            root = null;
+            for (int i = 0; i < schemaList.size(); i++) {
+                BoolOpNode filter = joinPlanner.getFilter(i);
+                Operator table = new TableScan(this.storageManager, schemaList.get(i), fromArgs.get(i), filter, usedNames);
+                if (filter != null) {
+                    table = new Filter(table, filter);
                 }
-                System.out.println("");
+                root = root == null ? table : new HashJoin(root, table, joinPlanner.getJoinPredicates(i));
             }
+            head = joinPlanner.getResidual();
         }
-    }
-
-    private ArrayList<Record> crossProduct(ArrayList<ArrayList<Record>> tableRecords, ArrayList<String> tableNames, int index, Record current) {
-        ArrayList<Record> result = new ArrayList<>();
-
-        if (index == tableRecords.size()) {
-            if (current != null) {
-                result.add(current);
-            }
-            return result;
+        if (head != null) {
+            root = new Filter(root, head);
         }
 
-        for (Record rec : tableRecords.get(index)) {
-            ArrayList<Attribute> combinedAttributes = new ArrayList<>();
-            if (current != null) {
-                combinedAttributes.addAll(current.getAttributes());
-            }
+        if (orderByName != null) {
+            // sorts larger than the buffer spill to run files
+            String sortName = orderByName;
+            root = new Sort(root, (record1, record2) ->
+                    record1.getAttribute(sortName).compareTo(record2.getAttribute(sortName)),
+                    Catalog.getCatalog().getBufferSize());
+        }
 
-            String tableName = tableNames.get(index);
-            for (Attribute attribute : rec.getAttributes()) {
-                Attribute attr = attribute.clone();
-                if (!attr.getAttributeName().contains(".")) {
-                    String prefixedName = tableName + "." + attr.getAttributeName();
-                    AttributeSchema newSchema = new AttributeSchema(prefixedName, attr.getAttributeType(), attr.getAttributeId(), attr.isKey(), attr.isUnique(), attr.isNull());
-                    Attribute newAttribute = new Attribute(newSchema, attr.getData());
-                    combinedAttributes.add(newAttribute);
-                } else {
-                    combinedAttributes.add(attr);
+        // print out the tuples as they are pulled from the tree
+        ArrayList<String> selectNames = new ArrayList<>();
+        for (AttributeSchema attributeSchema : selectAttributes) {
+            selectNames.add(attributeSchema.getAttributeName());
+        }
+        root = new Project(root, selectNames);
+        try {
+            root.open();
+            for (Record record = root.next(); record != null; record = root.next()) {
+                System.out.println("");
+                for (String selectName : selectNames) {
+                    Attribute attr = record.getAttribute(selectName);
+                    System.out.print(attr.getData() + "   ");
                 }
             }
-
-            Record newRecord = new Record(combinedAttributes);
-            result.addAll(crossProduct(tableRecords, tableNames, index + 1, newRecord));
+            System.out.println("");
+        } finally {
+            root.close();
         }
-
-        return result;
     }
 
     public void delete(String tableName, String where) throws CloneNotSupportedException, NoTableException {
         TableSchema schema = formatSchemaName(tableName);
 
-        ArrayList<Record> records = getAllRecords(schema, tableName);
+        BoolOpNode head = null;
+        try {
+            if (where != null) {
+                head = Parser.parseWhere(where);
+            }
+        } catch (SyntaxErrorException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        ArrayList<Record> records = getRecords(schema, tableName, head);
 
         if (records == null) {
             return;
@@ -274,8 +241,7 @@ public class DMLParser {
 
         for (Record record : records) {
             try {
-                if (where != null) {
-                    BoolOpNode head = Parser.parseWhere(where);
+                if (head != null) {
                     if (!head.evaluate(record))
                         continue;
                 }
@@ -368,16 +334,16 @@ public class DMLParser {
         if (value != null && !confirmDataType(updateAttr, value))
             return;
 
-        ArrayList<Record> records = getAllRecords(schema, tableName);
-
-        if (records == null) {
-            return;
-        }
-
         BoolOpNode head = null;
         if (where != null) {
             head = Parser.parseWhere(where);
         }
+
+        ArrayList<Record> records = getRecords(schema, tableName, head);
+
+        if (records == null) {
+            return;
+        }
         for (Record record : records) {
             // Dont record saves on original record until actually inserted
             Record recordClone = record.clone();
@@ -468,6 +434,17 @@ public class DMLParser {
         }
         System.out.println();
 
+        if (!schema.getIndexedAttributes().isEmpty() || schema.hasHashIndex()) {
+            System.out.print("Indexes: ");
+            if (schema.hasHashIndex()) {
+                System.out.print(schema.getPrimaryKey().getAttributeName() + " (hash), ");
+            }
+            for (int attributeId : schema.getIndexedAttributes()) {
+                System.out.print(schema.getAttributeSchema(attributeId).getAttributeName() + ", ");
+            }
+            System.out.println();
+        }
+
         System.out.println("Number of Pages: " + schema.getNumPages());
 
         ArrayList<Record> records;
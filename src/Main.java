@@ -17,8 +17,8 @@ import storageManager.Attribute;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 4) {
-            System.err.println("Usage: java Main <dbLoc> <pageSize> <bufferSize> <indexing>");
+        if (args.length < 4) {
+            System.err.println("Usage: java Main <dbLoc> <pageSize> <bufferSize> <indexing> [--policy=<lru|clock|lru-k|2q|arc>] [--io=<standard|mmap>]");
             System.exit(1);
         }
         
@@ -26,6 +26,8 @@ public class Main {
         int pageSize = 0;
         int bufferSize = 0;
         boolean indexing = false;
+        String policy = "lru";
+        boolean memoryMapped = false;
         try {
             pageSize = Integer.parseInt(args[1]);
             bufferSize = Integer.parseInt(args[2]);
@@ -39,6 +41,17 @@ public class Main {
             if (args[3].toLowerCase().equals("true")) {
                 indexing = true;
             }
+            for (int i = 4; i < args.length; i++) {
+                if (args[i].startsWith("--policy=")) {
+                    policy = args[i].substring("--policy=".length());
+                } else if (args[i].equals("--io=mmap")) {
+                    memoryMapped = true;
+                } else if (args[i].equals("--io=standard")) {
+                    memoryMapped = false;
+                } else {
+                    throw new Exception("Fatal: unknown option " + args[i] + ". Aborting.");
+                }
+            }
         } catch (NumberFormatException e) {
             System.err.println("Fatal: pageSize and/or bufferSize parameters contain no parseable integers. Aborting.");
             System.exit(1);
@@ -68,7 +81,12 @@ public class Main {
         }
 
         // Initialize Storage Manager
-        StorageManager.InitStorageManager(bufferSize);
+        try {
+            StorageManager.InitStorageManager(bufferSize, policy, memoryMapped);
+        } catch (IllegalOperationException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
 
         if (!catalog.getIndexing() && indexing) {
             System.out.println("Turning on indexing");
@@ -84,6 +102,7 @@ public class Main {
         System.out.println("Page size: " + catalog.getPageSize());
         System.out.println("Buffer size: " + catalog.getBufferSize());
         System.out.println("Indexing: " + catalog.getIndexing());
+        System.out.println("Page I/O: " + (memoryMapped ? "memory mapped" : "standard"));
         
         Scanner scanner = new Scanner(System.in);
         //allows us to use non-static methods
@@ -113,10 +132,18 @@ public class Main {
                 switch(commands[0]){
                     default: System.out.println(help()); break;
                     case "create":
-                        createTableParser(ddlParser, catalog, commands);
+                        if (commands.length > 1 && commands[1].equals("index")) {
+                            indexParser(ddlParser, catalog, commands, true);
+                        } else {
+                            createTableParser(ddlParser, catalog, commands);
+                        }
                         break;
                     case "drop":
-                        ddlParser.dropTable(catalog, commands[commands.length - 1].substring(0, commands[commands.length - 1].length()));
+                        if (commands.length > 1 && commands[1].equals("index")) {
+                            indexParser(ddlParser, catalog, commands, false);
+                        } else {
+                            ddlParser.dropTable(catalog, commands[commands.length - 1].substring(0, commands[commands.length - 1].length()));
+                        }
                         break;
                     case "alter":
                         alterTableParser(ddlParser, catalog, commands);
@@ -131,6 +158,9 @@ public class Main {
                         else if(commands[1].equals("schema") && commands.length == 2){
                             dmlParser.displaySchema();
                         }
+                        else if(commands[1].equals("buffer") && commands.length == 2){
+                            System.out.println(StorageManager.GetStorageManager().getBufferStatistics());
+                        }
                         else{
                             System.out.println(help());
                         }
@@ -148,7 +178,7 @@ public class Main {
                     case "quit":
                         running = false;
                         catalog.writeBinary();
-                        StorageManager.GetStorageManager().flushBuffer();
+                        StorageManager.GetStorageManager().shutdown();
                         break;
                 }
             } catch (Exception e) {
@@ -205,6 +235,40 @@ public class Main {
         }
     }
 
+    /**
+     * argument parser for create index and drop index commands, in the form
+     * create index on <name> (<a_name>) [using <btree|hash>], takes in the commands and calls DDLParser.DDLParser
+     * to handle processed commands
+     *
+     * @param ddlParser the DDLParser.DDLParser instance
+     * @param catalog the catalog we are editing to
+     * @param commands the string list of commands to process
+     * @param create whether the index is created or dropped
+     */
+    public static void indexParser(DDLParser ddlParser, Catalog catalog, String[] commands, boolean create) {
+        String command = String.join(" ", Arrays.copyOfRange(commands, 2, commands.length));
+        Matcher matcher = Pattern.compile("on\\s+(\\w+)\\s*\\(\\s*(\\w+)\\s*\\)(\\s+using\\s+(\\w+))?").matcher(command.strip());
+        if (!matcher.matches() || (!create && matcher.group(3) != null)) {
+            System.err.println("Indexes are denoted " + commands[0] + " index on <name> (<a_name>)" +
+                    (create ? " [using <btree|hash>]" : ""));
+            return;
+        }
+        String type = matcher.group(4) == null ? "btree" : matcher.group(4);
+        if (!type.equals("btree") && !type.equals("hash")) {
+            System.err.println("Unknown index type " + type + ", indexes are btree or hash");
+            return;
+        }
+        try {
+            if (create) {
+                ddlParser.createIndex(catalog, matcher.group(1), matcher.group(2), type.equals("hash"));
+            } else {
+                ddlParser.dropIndex(catalog, matcher.group(1), matcher.group(2));
+            }
+        } catch (NoTableException | IllegalOperationException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
     /**
      * argument parser for alter table command, takes in the commands and calls DDLParser.DDLParser to handle
      * processed commands
@@ -483,6 +547,14 @@ public class Main {
             "\t\talter table <name> add <a_name> <a_type>;\n" +
             "\t\talter table <name> add <a_name> <a_type> default <value>;\n\n");
 
+        helpMessage.append(
+            "create index, drop index: used to add or remove an index on a column of a table.\n" +
+            "\tA hash index can only be on the primary key and speeds up lookups of single keys.\n" +
+            "\tUsage:\n" +
+            "\t\tcreate index on <name> (<a_name>);\n" +
+            "\t\tcreate index on <name> (<a_name>) using hash;\n" +
+            "\t\tdrop index on <name> (<a_name>);\n\n");
+
         helpMessage.append(
             "insert: used to insert data into a table.\n" +
             "\tUsage: insert into <name> values <tuples>;\n\n"
@@ -505,6 +577,11 @@ public class Main {
             "\tUsage: display info <name>;\n\n"
         );
 
+        helpMessage.append(
+            "display buffer: used to display the buffer replacement policy and its hit ratio.\n" +
+            "\tUsage: display buffer;\n\n"
+        );
+
         helpMessage.append(
                 "exit, quit: exit and save the database.\n" +
                         "\tUsage: exit; or quit;\n\n"
@@ -0,0 +1,226 @@
+/**
+ * Join Planner
+ * Splits a where clause over several tables on its ANDs. Parts on the attributes of one table filter that table's
+ * records before they are joined, and equi-join predicates, comparisons of an attribute of one table to an
+ * attribute of another, join each table to the tables before it. The rest of the clause is checked afterward
+ */
+package WhereParser;
+
+import WhereParser.Nodes.BoolOpNode;
+import WhereParser.Nodes.ComparisonOpNode;
+import WhereParser.Nodes.IDNode;
+import WhereParser.Nodes.LogicOpNode;
+import WhereParser.TokenParser.Token;
+import catalog.AttributeSchema;
+import catalog.AttributeType;
+import catalog.TableSchema;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+public class JoinPlanner {
+
+    /**
+     * Equality of an attribute of a table to an attribute of a table before it
+     */
+    public static class JoinPredicate {
+        // full names, table.attribute
+        public final String leftName;
+        public final String rightName;
+
+        private JoinPredicate(String leftName, String rightName) {
+            this.leftName = leftName;
+            this.rightName = rightName;
+        }
+    }
+
+    private final ArrayList<ArrayList<JoinPredicate>> joinPredicates;
+    // parts of the clause on one table's attributes, by table
+    private final ArrayList<ArrayList<BoolOpNode>> filters;
+    private final ArrayList<BoolOpNode> residual;
+    // full names of the attributes the clause uses, null if one can not be told apart from the others
+    private final HashSet<String> clauseAttributes;
+
+    /**
+     * @param schemas schemas of the tables in the order they are joined
+     * @param where   parsed where clause, null for none
+     */
+    public JoinPlanner(ArrayList<TableSchema> schemas, BoolOpNode where) {
+        this.joinPredicates = new ArrayList<>();
+        this.filters = new ArrayList<>();
+        this.residual = new ArrayList<>();
+        ArrayList<String> attributeNames = new ArrayList<>();
+        ArrayList<Integer> tablePositions = new ArrayList<>();
+        ArrayList<AttributeType> attributeTypes = new ArrayList<>();
+        for (int i = 0; i < schemas.size(); i++) {
+            TableSchema schema = schemas.get(i);
+            for (AttributeSchema attributeSchema : schema.getAttributeSchema()) {
+                String name = attributeSchema.getAttributeName();
+                attributeNames.add(name.contains(".") ? name : schema.getTableName() + "." + name);
+                tablePositions.add(i);
+                attributeTypes.add(attributeSchema.getAttributeType());
+            }
+            this.joinPredicates.add(new ArrayList<>());
+            this.filters.add(new ArrayList<>());
+        }
+        this.clauseAttributes = findClauseAttributes(where, attributeNames);
+        if (where == null) {
+            return;
+        }
+
+        ArrayList<BoolOpNode> conjuncts = new ArrayList<>();
+        addConjuncts(where, conjuncts);
+        for (BoolOpNode conjunct : conjuncts) {
+            int table = getTablePosition(conjunct, attributeNames, tablePositions);
+            if (table >= 0) {
+                this.filters.get(table).add(conjunct);
+                continue;
+            }
+            int left = -1, right = -1;
+            if (isAttributeEquality(conjunct)) {
+                ComparisonOpNode comparison = (ComparisonOpNode) conjunct;
+                left = attributeNames.indexOf(((IDNode) comparison.leftOp).resolve(attributeNames));
+                right = attributeNames.indexOf(((IDNode) comparison.rightOp).resolve(attributeNames));
+            }
+            if (left == -1 || right == -1 || tablePositions.get(left).equals(tablePositions.get(right))
+                    || !isHashable(attributeTypes.get(left), attributeTypes.get(right))) {
+                this.residual.add(conjunct);
+                continue;
+            }
+            if (tablePositions.get(left) > tablePositions.get(right)) {
+                int swap = left;
+                left = right;
+                right = swap;
+            }
+            this.joinPredicates.get(tablePositions.get(right))
+                    .add(new JoinPredicate(attributeNames.get(left), attributeNames.get(right)));
+        }
+    }
+
+    /**
+     * Split a clause on its ANDs
+     */
+    private static void addConjuncts(BoolOpNode node, ArrayList<BoolOpNode> conjuncts) {
+        if (node instanceof LogicOpNode && ((LogicOpNode) node).op.type == Token.TokenType.AND) {
+            addConjuncts(((LogicOpNode) node).boolOp1, conjuncts);
+            addConjuncts(((LogicOpNode) node).boolOp2, conjuncts);
+        } else {
+            conjuncts.add(node);
+        }
+    }
+
+    /**
+     * Find the one table whose attributes a part of the clause is on
+     * @return position of the table, -1 if the part is on several tables or none, or an attribute it names can not
+     * be told apart from the others
+     */
+    private static int getTablePosition(BoolOpNode node, ArrayList<String> attributeNames, ArrayList<Integer> tablePositions) {
+        ArrayList<IDNode> ids = new ArrayList<>();
+        addIds(node, ids);
+        int table = -1;
+        for (IDNode id : ids) {
+            int attribute = attributeNames.indexOf(id.resolve(attributeNames));
+            if (attribute == -1 || (table != -1 && table != tablePositions.get(attribute))) {
+                return -1;
+            }
+            table = tablePositions.get(attribute);
+        }
+        return table;
+    }
+
+    private static HashSet<String> findClauseAttributes(BoolOpNode where, ArrayList<String> attributeNames) {
+        HashSet<String> clauseAttributes = new HashSet<>();
+        ArrayList<IDNode> ids = new ArrayList<>();
+        if (where != null) {
+            addIds(where, ids);
+        }
+        for (IDNode id : ids) {
+            String name = id.resolve(attributeNames);
+            if (name == null) {
+                return null;
+            }
+            clauseAttributes.add(name);
+        }
+        return clauseAttributes;
+    }
+
+    private static void addIds(BoolOpNode node, ArrayList<IDNode> ids) {
+        if (node instanceof LogicOpNode) {
+            addIds(((LogicOpNode) node).boolOp1, ids);
+            addIds(((LogicOpNode) node).boolOp2, ids);
+        } else if (node instanceof ComparisonOpNode) {
+            ComparisonOpNode comparison = (ComparisonOpNode) node;
+            if (comparison.leftOp instanceof IDNode) {
+                ids.add((IDNode) comparison.leftOp);
+            }
+            if (comparison.rightOp instanceof IDNode) {
+                ids.add((IDNode) comparison.rightOp);
+            }
+        }
+    }
+
+    private static boolean isAttributeEquality(BoolOpNode node) {
+        if (!(node instanceof ComparisonOpNode)) {
+            return false;
+        }
+        ComparisonOpNode comparison = (ComparisonOpNode) node;
+        return comparison.comparison.type == Token.TokenType.EQUALS
+                && comparison.leftOp instanceof IDNode && comparison.rightOp instanceof IDNode;
+    }
+
+    /**
+     * Whether equal values of two types are equal objects, so they can be matched by their hash. An integer and a
+     * double that compare equal do not hash the same
+     */
+    private static boolean isHashable(AttributeType type1, AttributeType type2) {
+        return type1.type == type2.type || (isString(type1) && isString(type2));
+    }
+
+    private static boolean isString(AttributeType type) {
+        return type.type == AttributeType.TYPE.CHAR || type.type == AttributeType.TYPE.VARCHAR;
+    }
+
+    /**
+     * Get the predicates a table is joined to the tables before it on
+     * @param position position of the table
+     * @return predicates with the left attribute in an earlier table and the right one in this table, empty when
+     * the table is only crossed with the ones before it
+     */
+    public ArrayList<JoinPredicate> getJoinPredicates(int position) {
+        return this.joinPredicates.get(position);
+    }
+
+    /**
+     * Get the part of the where clause on the attributes of one table, checked on its records before they are joined
+     * @param position position of the table
+     * @return the clause, null if no part of it is on only this table
+     */
+    public BoolOpNode getFilter(int position) {
+        return and(this.filters.get(position));
+    }
+
+    /**
+     * Get what is left of the where clause once the tables are filtered and joined on their predicates
+     * @return the clause, null if nothing is left to check
+     */
+    public BoolOpNode getResidual() {
+        return and(this.residual);
+    }
+
+    /**
+     * Get the attributes the where clause uses, the ones records have to keep for it to be evaluated
+     * @return full names, table.attribute, null if an attribute the clause names matches none or several of the
+     * tables' attributes, so every attribute has to be kept for it to be reported the same way
+     */
+    public HashSet<String> getClauseAttributes() {
+        return this.clauseAttributes == null ? null : new HashSet<>(this.clauseAttributes);
+    }
+
+    private static BoolOpNode and(ArrayList<BoolOpNode> conjuncts) {
+        BoolOpNode clause = null;
+        for (BoolOpNode conjunct : conjuncts) {
+            clause = clause == null ? conjunct : new LogicOpNode(new Token(Token.TokenType.AND, "and"), clause, conjunct);
+        }
+        return clause;
+    }
+}
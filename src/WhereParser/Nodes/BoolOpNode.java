@@ -9,9 +9,12 @@ import WhereParser.TokenParser.ParseUtils;
 import WhereParser.TokenParser.Token;
 import Exceptions.IllegalOperationException;
 import Exceptions.SyntaxErrorException;
+import catalog.AttributeType;
+import storageManager.KeyRange;
 import storageManager.Record;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface BoolOpNode {
     public static BoolOpNode parseBoolNode(ArrayList<Token> tokens) throws SyntaxErrorException {
@@ -39,4 +42,14 @@ public interface BoolOpNode {
 
     public abstract boolean evaluate(Record record) throws IllegalOperationException;
     // evaluate function
+
+    /**
+     * Find the ranges the primary key is in for every record this expression is true for
+     * @param attributeNames names of the attributes of the records the expression is evaluated on
+     * @param keyName        name of the primary key among them
+     * @param keyType        type of the primary key, constants of other types do not bound it
+     * @return sorted ranges of keys that do not overlap, a single unbounded range when the expression does not
+     * bound the key and none when no key can satisfy it
+     */
+    public abstract ArrayList<KeyRange> getKeyRanges(Collection<String> attributeNames, String keyName, AttributeType keyType);
 }
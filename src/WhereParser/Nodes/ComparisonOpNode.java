@@ -9,10 +9,14 @@ import WhereParser.TokenParser.ParseUtils;
 import WhereParser.TokenParser.Token;
 import Exceptions.IllegalOperationException;
 import Exceptions.SyntaxErrorException;
+import catalog.AttributeType;
+import storageManager.KeyRange;
 import storageManager.Record;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 public class ComparisonOpNode implements BoolOpNode {
     public Token comparison;
@@ -57,4 +61,45 @@ public class ComparisonOpNode implements BoolOpNode {
         }
         return false;
     }
+
+    @Override
+    public ArrayList<KeyRange> getKeyRanges(Collection<String> attributeNames, String keyName, AttributeType keyType) {
+        // only the key compared to a constant bounds it, the key can be on either side
+        boolean keyOnLeft = isKey(leftOp, attributeNames, keyName) && !(rightOp instanceof IDNode);
+        boolean keyOnRight = isKey(rightOp, attributeNames, keyName) && !(leftOp instanceof IDNode);
+        if (!keyOnLeft && !keyOnRight) {
+            return new ArrayList<>(List.of(KeyRange.all()));
+        }
+        Object value;
+        try {
+            value = (keyOnLeft ? rightOp : leftOp).evaluate(null);
+        } catch (IllegalOperationException | IllegalArgumentException e) {
+            // left for evaluate to report
+            return new ArrayList<>(List.of(KeyRange.all()));
+        }
+        KeyRange range = getKeyRange(value, keyOnLeft);
+        // a constant of another type cannot be searched for, every record is checked instead
+        return new ArrayList<>(List.of(range.isOfType(keyType) ? range : KeyRange.all()));
+    }
+
+    private KeyRange getKeyRange(Object value, boolean keyOnLeft) {
+        switch (comparison.type) {
+            case GT:
+                return keyOnLeft ? new KeyRange(value, false, null, false) : new KeyRange(null, false, value, false);
+            case GTE:
+                return keyOnLeft ? new KeyRange(value, true, null, false) : new KeyRange(null, false, value, true);
+            case LT:
+                return keyOnLeft ? new KeyRange(null, false, value, false) : new KeyRange(value, false, null, false);
+            case LTE:
+                return keyOnLeft ? new KeyRange(null, false, value, true) : new KeyRange(value, true, null, false);
+            case EQUALS:
+                return KeyRange.of(value);
+            default:
+                return KeyRange.all();
+        }
+    }
+
+    private static boolean isKey(OperandNode operand, Collection<String> attributeNames, String keyName) {
+        return operand instanceof IDNode && keyName.equals(((IDNode) operand).resolve(attributeNames));
+    }
 }
@@ -9,12 +9,10 @@ import WhereParser.TokenParser.ParseUtils;
 import WhereParser.TokenParser.Token;
 import Exceptions.IllegalOperationException;
 import Exceptions.SyntaxErrorException;
-import catalog.AttributeSchema;
 import storageManager.Record;
 
 import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Collection;
 
 public class IDNode extends OperandNode {
 
@@ -34,18 +32,41 @@ public class IDNode extends OperandNode {
         return new IDNode(id);
     }
 
+    /**
+     * Find the attribute this id refers to, the same way it is matched to a record's attributes
+     * @param attributeNames names of the attributes
+     * @return the name, null if none or several match
+     */
+    public String resolve(Collection<String> attributeNames) {
+        String matchingColumnName = null;
+        for (String attributeName : attributeNames) {
+            if (attributeName.endsWith(id.value)) {
+                if (matchingColumnName != null) {
+                    return null;
+                }
+                matchingColumnName = attributeName;
+            }
+        }
+        return matchingColumnName;
+    }
+
     private Object getRecordValue(Record record) throws IllegalOperationException {
         try {
-            List<AttributeSchema> matchingColumns = record.getAttributes().stream()
-                    .filter(attr -> attr.getAttributeName().endsWith(id.value))
-                    .collect(Collectors.toList());
+            // match on names so only the attribute used is decoded
+            String matchingColumnName = null;
+            int matches = 0;
+            for (String attributeName : record.getAttributeNames()) {
+                if (attributeName.endsWith(id.value)) {
+                    matchingColumnName = attributeName;
+                    matches++;
+                }
+            }
 
-            if (matchingColumns.isEmpty()) {
+            if (matches == 0) {
                 throw new IllegalOperationException("Where column " + id.value + " not found");
-            } else if (matchingColumns.size() != 1) {
+            } else if (matches != 1) {
                 throw new IllegalOperationException("Where column " + id.value + " is ambiguous");
             }
-            String matchingColumnName = matchingColumns.get(0).getAttributeName();
             return record.getAttribute(matchingColumnName).getData();
         } catch (NullPointerException e) {
             throw new IllegalOperationException("Property " + id.value + " does not exist");
@@ -9,8 +9,12 @@ import WhereParser.TokenParser.ParseUtils;
 import WhereParser.TokenParser.Token;
 import Exceptions.IllegalOperationException;
 import Exceptions.SyntaxErrorException;
+import catalog.AttributeType;
+import storageManager.KeyRange;
 import storageManager.Record;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class LogicOpNode implements BoolOpNode {
 
@@ -47,4 +51,16 @@ public class LogicOpNode implements BoolOpNode {
         }
         return false;
     }
+
+    @Override
+    public ArrayList<KeyRange> getKeyRanges(Collection<String> attributeNames, String keyName, AttributeType keyType) {
+        ArrayList<KeyRange> ranges1 = boolOp1.getKeyRanges(attributeNames, keyName, keyType);
+        ArrayList<KeyRange> ranges2 = boolOp2.getKeyRanges(attributeNames, keyName, keyType);
+        if (op.type == Token.TokenType.AND) {
+            return KeyRange.intersection(ranges1, ranges2);
+        } else if (op.type == Token.TokenType.OR) {
+            return KeyRange.union(ranges1, ranges2);
+        }
+        return new ArrayList<>(List.of(KeyRange.all()));
+    }
 }
@@ -0,0 +1,169 @@
+/**
+ * Query Planner
+ * Chooses how the records a where clause can be true for are read from a table, looking the primary key up in
+ * the index for equality predicates and scanning key ranges for comparisons. When the clause does not bound the
+ * primary key an indexed attribute it bounds is searched instead, and the whole table is scanned only when there
+ * is none
+ */
+package WhereParser;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import WhereParser.Nodes.BoolOpNode;
+import catalog.AttributeSchema;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.KeyRange;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class QueryPlanner {
+
+    public enum Access {
+        NONE,       // no key can satisfy the clause
+        POINT,      // every range is a single key
+        RANGE,      // some range holds more than one key
+        INDEX,      // the clause bounds an attribute with a secondary index
+        FULL_SCAN   // the clause bounds neither the key nor an indexed attribute
+    }
+
+    private final TableSchema schema;
+    private final ArrayList<String> attributeNames;
+    private AttributeSchema key;
+    private String keyName;
+    // attributes with a secondary index and their names among the attribute names
+    private final ArrayList<AttributeSchema> indexedAttributes;
+    private final ArrayList<String> indexedNames;
+
+    public QueryPlanner(TableSchema schema) {
+        this.schema = schema;
+        this.attributeNames = new ArrayList<>();
+        this.indexedAttributes = new ArrayList<>();
+        this.indexedNames = new ArrayList<>();
+        for (AttributeSchema attributeSchema : schema.getAttributeSchema()) {
+            String name = attributeSchema.getAttributeName();
+            if (!name.contains(".")) {
+                name = schema.getTableName() + "." + name;
+            }
+            this.attributeNames.add(name);
+            if (attributeSchema.isKey()) {
+                this.key = attributeSchema;
+                this.keyName = name;
+            } else if (schema.isIndexed(attributeSchema)) {
+                this.indexedAttributes.add(attributeSchema);
+                this.indexedNames.add(name);
+            }
+        }
+    }
+
+    /**
+     * Find the ranges of primary keys a where clause can be true for
+     * @param where parsed where clause, null for every record
+     * @return sorted ranges that do not overlap
+     */
+    public ArrayList<KeyRange> getKeyRanges(BoolOpNode where) {
+        if (where == null || this.key == null) {
+            return new ArrayList<>(List.of(KeyRange.all()));
+        }
+        return where.getKeyRanges(this.attributeNames, this.keyName, this.key.getAttributeType());
+    }
+
+    /**
+     * Find the first indexed attribute a where clause bounds
+     * @param where parsed where clause, null for every record
+     * @return position of the attribute among the indexed attributes, -1 if the clause bounds none
+     */
+    private int findIndexedAttribute(BoolOpNode where) {
+        if (where == null) {
+            return -1;
+        }
+        for (int i = 0; i < this.indexedAttributes.size(); i++) {
+            ArrayList<KeyRange> ranges = getIndexRanges(where, i);
+            if (getAccess(ranges) != Access.FULL_SCAN) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ArrayList<KeyRange> getIndexRanges(BoolOpNode where, int position) {
+        return where.getKeyRanges(this.attributeNames, this.indexedNames.get(position),
+                this.indexedAttributes.get(position).getAttributeType());
+    }
+
+    /**
+     * How records are read for a where clause
+     * @param where parsed where clause, null for every record
+     * @return access path
+     */
+    public Access getAccess(BoolOpNode where) {
+        Access access = getAccess(getKeyRanges(where));
+        if (access == Access.FULL_SCAN && findIndexedAttribute(where) != -1) {
+            return Access.INDEX;
+        }
+        return access;
+    }
+
+    /**
+     * How records are read for a set of key ranges
+     * @param ranges sorted ranges that do not overlap
+     * @return access path
+     */
+    public static Access getAccess(ArrayList<KeyRange> ranges) {
+        if (ranges.isEmpty()) {
+            return Access.NONE;
+        }
+        Access access = Access.POINT;
+        for (KeyRange range : ranges) {
+            if (range.isUnbounded()) {
+                return Access.FULL_SCAN;
+            } else if (!range.isPoint()) {
+                access = Access.RANGE;
+            }
+        }
+        return access;
+    }
+
+    /**
+     * Read the records a where clause can be true for, in key order. The clause still has to be evaluated on
+     * each of them since only its predicates on the primary key, or on one indexed attribute, are used
+     * @param storageManager storage manager to read from
+     * @param where          parsed where clause, null for every record
+     * @return the records
+     */
+    public ArrayList<Record> getRecords(StorageManager storageManager, BoolOpNode where) throws NoTableException, IllegalOperationException {
+        ArrayList<KeyRange> ranges = getKeyRanges(where);
+        int tableId = this.schema.getTableId();
+        ArrayList<Record> records = new ArrayList<>();
+        switch (getAccess(where)) {
+            case NONE:
+                return records;
+            case FULL_SCAN:
+                return storageManager.getAllRecords(tableId);
+            case INDEX:
+                int position = findIndexedAttribute(where);
+                int attributeId = this.indexedAttributes.get(position).getAttributeId();
+                for (KeyRange range : getIndexRanges(where, position)) {
+                    records.addAll(storageManager.getRecordsByIndex(tableId, attributeId, range));
+                }
+                // each range comes in key order on its own
+                records.sort(null);
+                return records;
+            default:
+                for (KeyRange range : ranges) {
+                    if (range.isPoint()) {
+                        Record record = storageManager.getRecordByPrimaryKey(tableId, new Attribute(this.key, range.getLow()));
+                        if (record != null) {
+                            records.add(record);
+                        }
+                    } else {
+                        records.addAll(storageManager.getRecordsInRange(tableId, range));
+                    }
+                }
+                return records;
+        }
+    }
+}
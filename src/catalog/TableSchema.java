@@ -5,11 +5,19 @@ import java.util.ArrayList;
 
 public class TableSchema implements Serializable, Cloneable {
 
+    // the id Java computed for the class as first released, kept fixed so catalogs written by earlier versions still
+    // read now that methods and fields have been added
+    private static final long serialVersionUID = -8597792401909604880L;
+
     private ArrayList<AttributeSchema> tableAttributes;
     private String tableName;
     private int tableId;
 
     private int numPages;
+    // ids of the attributes with a secondary index, null in catalogs written before there were any
+    private ArrayList<Integer> indexedAttributes;
+    // whether the primary key has a hash index, false in catalogs written before there were any
+    private boolean hashIndexed;
 
     public TableSchema(int id, String name, ArrayList<AttributeSchema> attributes) {
         this.tableId = id;
@@ -72,6 +80,39 @@ public class TableSchema implements Serializable, Cloneable {
         return this.tableAttributes.remove(removeIndex);
     }
 
+    /**
+     * Get the ids of the attributes with a secondary index
+     * @return attribute ids
+     */
+    public ArrayList<Integer> getIndexedAttributes() {
+        if (this.indexedAttributes == null) {
+            this.indexedAttributes = new ArrayList<>();
+        }
+        return this.indexedAttributes;
+    }
+
+    public boolean isIndexed(AttributeSchema attributeSchema) {
+        return getIndexedAttributes().contains(attributeSchema.getAttributeId());
+    }
+
+    public void addIndex(AttributeSchema attributeSchema) {
+        if (!isIndexed(attributeSchema)) {
+            getIndexedAttributes().add(attributeSchema.getAttributeId());
+        }
+    }
+
+    public void removeIndex(AttributeSchema attributeSchema) {
+        getIndexedAttributes().remove(Integer.valueOf(attributeSchema.getAttributeId()));
+    }
+
+    public boolean hasHashIndex() {
+        return this.hashIndexed;
+    }
+
+    public void setHashIndexed(boolean hashIndexed) {
+        this.hashIndexed = hashIndexed;
+    }
+
     public int getNumPages() {
         return this.numPages;
     }
@@ -93,6 +134,9 @@ public class TableSchema implements Serializable, Cloneable {
                 cloned.tableAttributes.add( (AttributeSchema) attribute.clone()); // Ensure deep copy
             }
         }
+        if (this.indexedAttributes != null) {
+            cloned.indexedAttributes = new ArrayList<>(this.indexedAttributes);
+        }
         return cloned;
     }
 
@@ -100,10 +144,26 @@ public class TableSchema implements Serializable, Cloneable {
         return Catalog.getCatalog().getLocation() + "/" + getTableId() + "-index" + ".bin";
     }
 
+    public String getIndexLocation(AttributeSchema attributeSchema) {
+        return Catalog.getCatalog().getLocation() + "/" + getTableId() + "-index-" + attributeSchema.getAttributeId() + ".bin";
+    }
+
+    public String getHashIndexLocation() {
+        return Catalog.getCatalog().getLocation() + "/" + getTableId() + "-hash" + ".bin";
+    }
+
+    public String getHashDirectoryLocation() {
+        return Catalog.getCatalog().getLocation() + "/" + getTableId() + "-hash-directory" + ".bin";
+    }
+
     public String getPageLocation() {
         return Catalog.getCatalog().getLocation() + "/" + getTableId() + ".bin";
     }
 
+    public String getDirectoryLocation() {
+        return Catalog.getCatalog().getLocation() + "/" + getTableId() + "-pages" + ".bin";
+    }
+
     public AttributeSchema getPrimaryKey() {
         AttributeSchema primaryKey = null;
         for (AttributeSchema attributeSchema : tableAttributes) {
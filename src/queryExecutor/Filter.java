@@ -0,0 +1,39 @@
+/**
+ * Filter
+ * Passes on the records of its child a where clause is true for
+ */
+package queryExecutor;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import WhereParser.Nodes.BoolOpNode;
+import storageManager.Record;
+
+public class Filter implements Operator {
+    private final Operator child;
+    private final BoolOpNode where;
+
+    public Filter(Operator child, BoolOpNode where) {
+        this.child = child;
+        this.where = where;
+    }
+
+    @Override
+    public void open() throws NoTableException, IllegalOperationException {
+        this.child.open();
+    }
+
+    @Override
+    public Record next() throws NoTableException, IllegalOperationException {
+        Record record = this.child.next();
+        while (record != null && !this.where.evaluate(record)) {
+            record = this.child.next();
+        }
+        return record;
+    }
+
+    @Override
+    public void close() {
+        this.child.close();
+    }
+}
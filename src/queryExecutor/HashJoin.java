@@ -0,0 +1,96 @@
+/**
+ * Hash Join
+ * Combines the records of its left child with the records of its right child that match them on every equi-join
+ * predicate. The right child's records are hashed on their join attributes when the join is opened, then each left
+ * record looks up its matches as it is pulled, so the output keeps the order a cross product would have. Without
+ * predicates every record matches and the join is a cross product
+ */
+package queryExecutor;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import WhereParser.JoinPlanner;
+import storageManager.Attribute;
+import storageManager.Record;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class HashJoin implements Operator {
+    private final Operator left;
+    private final Operator right;
+    private final ArrayList<JoinPlanner.JoinPredicate> predicates;
+
+    private HashMap<List<Object>, ArrayList<Record>> hashTable;
+    // left record being matched and its matches
+    private Record current;
+    private ArrayList<Record> matches;
+    private int position;
+
+    /**
+     * @param left       records joined so far
+     * @param right      records of the next table
+     * @param predicates predicates with the left attribute in the left child's records, empty for a cross product
+     */
+    public HashJoin(Operator left, Operator right, ArrayList<JoinPlanner.JoinPredicate> predicates) {
+        this.left = left;
+        this.right = right;
+        this.predicates = predicates;
+    }
+
+    @Override
+    public void open() throws NoTableException, IllegalOperationException {
+        this.hashTable = new HashMap<>();
+        this.right.open();
+        for (Record rec = this.right.next(); rec != null; rec = this.right.next()) {
+            List<Object> key = getJoinKey(rec, false);
+            if (key != null) {
+                this.hashTable.computeIfAbsent(key, k -> new ArrayList<>()).add(rec);
+            }
+        }
+        this.right.close();
+        this.left.open();
+        this.matches = null;
+    }
+
+    @Override
+    public Record next() throws NoTableException, IllegalOperationException {
+        while (this.matches == null || this.position == this.matches.size()) {
+            this.current = this.left.next();
+            if (this.current == null) {
+                return null;
+            }
+            List<Object> key = getJoinKey(this.current, true);
+            this.matches = key == null ? null : this.hashTable.get(key);
+            this.position = 0;
+        }
+        ArrayList<Attribute> combinedAttributes = new ArrayList<>(this.current.getAttributes());
+        combinedAttributes.addAll(this.matches.get(this.position++).getAttributes());
+        return new Record(combinedAttributes);
+    }
+
+    /**
+     * Values of a record's attributes on one side of the join predicates
+     * @return the values, null if one is null since null equals nothing
+     */
+    private List<Object> getJoinKey(Record record, boolean left) {
+        ArrayList<Object> key = new ArrayList<>(this.predicates.size());
+        for (JoinPlanner.JoinPredicate predicate : this.predicates) {
+            Attribute attribute = record.getAttribute(left ? predicate.leftName : predicate.rightName);
+            if (attribute == null || attribute.getData() == null) {
+                return null;
+            }
+            key.add(attribute.getData());
+        }
+        return key;
+    }
+
+    @Override
+    public void close() {
+        this.left.close();
+        this.hashTable = null;
+        this.current = null;
+        this.matches = null;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Operator
+ * Node of a query's operator tree. Records are pulled through the tree one at a time, each operator asking its
+ * children for the next record only when it needs one, so only what an operator has to hold on to, like the
+ * build side of a join or the input of a sort, is kept in memory
+ */
+package queryExecutor;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import storageManager.Record;
+
+public interface Operator {
+
+    /**
+     * Get ready to produce records, opening the children
+     */
+    void open() throws NoTableException, IllegalOperationException;
+
+    /**
+     * Produce the next record
+     * @return the record, null once there are no more
+     */
+    Record next() throws NoTableException, IllegalOperationException;
+
+    /**
+     * Let go of what the operator holds, closing the children
+     */
+    void close();
+}
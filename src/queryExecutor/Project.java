@@ -0,0 +1,49 @@
+/**
+ * Project
+ * Keeps only the selected attributes of its child's records, in the order they were selected
+ */
+package queryExecutor;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import storageManager.Attribute;
+import storageManager.Record;
+
+import java.util.ArrayList;
+
+public class Project implements Operator {
+    private final Operator child;
+    private final ArrayList<String> attributeNames;
+
+    /**
+     * @param child          operator producing the records
+     * @param attributeNames full names of the selected attributes, table.attributeName
+     */
+    public Project(Operator child, ArrayList<String> attributeNames) {
+        this.child = child;
+        this.attributeNames = attributeNames;
+    }
+
+    @Override
+    public void open() throws NoTableException, IllegalOperationException {
+        this.child.open();
+    }
+
+    @Override
+    public Record next() throws NoTableException, IllegalOperationException {
+        Record record = this.child.next();
+        if (record == null) {
+            return null;
+        }
+        ArrayList<Attribute> attributes = new ArrayList<>(this.attributeNames.size());
+        for (String attributeName : this.attributeNames) {
+            attributes.add(record.getAttribute(attributeName));
+        }
+        return new Record(attributes);
+    }
+
+    @Override
+    public void close() {
+        this.child.close();
+    }
+}
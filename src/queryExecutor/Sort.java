@@ -0,0 +1,190 @@
+/**
+ * Sort
+ * Orders the records of its child. Every record has to be seen before the first can come out, so the input is
+ * read when the sort is opened. An input that fits the memory budget is sorted in memory. A larger one is cut into
+ * runs that fit the budget, each sorted and spilled to a run file, and the runs are merged, as many at a time as
+ * the budget holds a page of, until one merge can produce the output
+ */
+package queryExecutor;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import catalog.Catalog;
+import storageManager.Record;
+import storageManager.RunFile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+public class Sort implements Operator {
+
+    /**
+     * Next record of a run being merged
+     */
+    private static class RunHead {
+        private final RunFile run;
+        // position of the run among the runs merged, earlier runs hold earlier records of the input
+        private final int runNumber;
+        private Record record;
+
+        private RunHead(RunFile run, int runNumber) {
+            this.run = run;
+            this.runNumber = runNumber;
+        }
+    }
+
+    private final Operator child;
+    private final Comparator<Record> comparator;
+    private final int memoryPages;
+
+    // input that fit in memory
+    private ArrayList<Record> records;
+    private int position;
+    // runs of the last merge, and their next records in order
+    private ArrayList<RunFile> runs;
+    private PriorityQueue<RunHead> heads;
+    private int runPageSize;
+    // every run file made since the sort was opened, so close deletes them even when a merge failed part way
+    private ArrayList<RunFile> runFiles;
+
+    /**
+     * @param child       operator producing the records
+     * @param comparator  order of the records
+     * @param memoryPages pages of records the sort may hold, at least 3 so two runs can be merged into a page
+     */
+    public Sort(Operator child, Comparator<Record> comparator, int memoryPages) {
+        this.child = child;
+        this.comparator = comparator;
+        this.memoryPages = Math.max(3, memoryPages);
+    }
+
+    @Override
+    public void open() throws NoTableException, IllegalOperationException {
+        long budget = (long) this.memoryPages * Catalog.getCatalog().getPageSize();
+        this.records = new ArrayList<>();
+        this.runs = new ArrayList<>();
+        this.runFiles = new ArrayList<>();
+        this.runPageSize = 0;
+        long size = 0;
+        this.child.open();
+        try {
+            for (Record record = this.child.next(); record != null; record = this.child.next()) {
+                // a record takes its size and a slot in a page
+                long recordSize = record.getSizeFile() + 8;
+                if (size + recordSize > budget && !this.records.isEmpty()) {
+                    spill();
+                    size = 0;
+                }
+                this.records.add(record);
+                size += recordSize;
+            }
+        } finally {
+            this.child.close();
+        }
+        this.position = 0;
+        if (this.runs.isEmpty()) {
+            // stable, records that compare equal keep the order they came in
+            this.records.sort(this.comparator);
+            return;
+        }
+        spill();
+        // merging reads a page of each run and writes a page of the merged run
+        int fanIn = this.memoryPages - 1;
+        while (this.runs.size() > fanIn) {
+            ArrayList<RunFile> merged = new ArrayList<>();
+            for (int i = 0; i < this.runs.size(); i += fanIn) {
+                ArrayList<RunFile> group = new ArrayList<>(this.runs.subList(i, Math.min(i + fanIn, this.runs.size())));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                RunFile run = newRun();
+                startMerge(group);
+                for (Record record = nextMerged(); record != null; record = nextMerged()) {
+                    run.add(record);
+                }
+                run.finish();
+                for (RunFile input : group) {
+                    input.delete();
+                }
+                merged.add(run);
+            }
+            this.runs = merged;
+        }
+        startMerge(this.runs);
+    }
+
+    /**
+     * Sort the records held and write them to a new run
+     */
+    private void spill() throws IllegalOperationException {
+        this.records.sort(this.comparator);
+        for (Record record : this.records) {
+            this.runPageSize = Math.max(this.runPageSize, RunFile.getPageSize(record));
+        }
+        RunFile run = newRun();
+        for (Record record : this.records) {
+            run.add(record);
+        }
+        run.finish();
+        this.runs.add(run);
+        this.records = new ArrayList<>();
+    }
+
+    private RunFile newRun() throws IllegalOperationException {
+        RunFile run = new RunFile(this.runPageSize);
+        this.runFiles.add(run);
+        return run;
+    }
+
+    private void startMerge(ArrayList<RunFile> runs) throws IllegalOperationException {
+        // equal records come from the earlier run first, which keeps the sort stable
+        this.heads = new PriorityQueue<>((head1, head2) -> {
+            int comparison = this.comparator.compare(head1.record, head2.record);
+            return comparison != 0 ? comparison : Integer.compare(head1.runNumber, head2.runNumber);
+        });
+        for (int i = 0; i < runs.size(); i++) {
+            RunHead head = new RunHead(runs.get(i), i);
+            head.record = head.run.next();
+            if (head.record != null) {
+                this.heads.add(head);
+            }
+        }
+    }
+
+    private Record nextMerged() throws IllegalOperationException {
+        RunHead head = this.heads.poll();
+        if (head == null) {
+            return null;
+        }
+        Record record = head.record;
+        head.record = head.run.next();
+        if (head.record != null) {
+            this.heads.add(head);
+        }
+        return record;
+    }
+
+    @Override
+    public Record next() throws IllegalOperationException {
+        if (this.heads != null) {
+            return nextMerged();
+        }
+        return this.position < this.records.size() ? this.records.get(this.position++) : null;
+    }
+
+    @Override
+    public void close() {
+        if (this.runFiles != null) {
+            // runs already merged were deleted then, deleting them again does nothing
+            for (RunFile run : this.runFiles) {
+                run.delete();
+            }
+        }
+        this.runFiles = null;
+        this.runs = null;
+        this.heads = null;
+        this.records = null;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Table Scan
+ * Reads the records of a table, with their attributes named table.attributeName. A whole table is read a page at
+ * a time through the buffer manager, only the page being read is held. When the query planner can narrow the read
+ * with predicates on the primary key or an indexed attribute, just the records it finds are held. Only the
+ * attributes the query uses are decoded and copied out of each record
+ */
+package queryExecutor;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.NoTableException;
+import WhereParser.Nodes.BoolOpNode;
+import WhereParser.QueryPlanner;
+import catalog.AttributeSchema;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.Page;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+public class TableScan implements Operator {
+    private final StorageManager storageManager;
+    private final int tableId;
+    private final String tableName;
+    private final QueryPlanner planner;
+    private final BoolOpNode where;
+    private final Set<String> attributeNames;
+
+    private boolean fullScan;
+    // records being read, a page of the table or the records the planner found
+    private ArrayList<Record> records;
+    private int position;
+    private int pagePosition;
+    private int numPages;
+
+    /**
+     * @param storageManager storage manager to read from
+     * @param schema         schema of the table
+     * @param tableName      name of the table
+     * @param where          clause the planner narrows the read with, null to read every record. It is not
+     *                       evaluated, records it is false for can still come out
+     * @param attributeNames full names of the attributes to keep, table.attributeName, null to keep every one
+     */
+    public TableScan(StorageManager storageManager, TableSchema schema, String tableName, BoolOpNode where,
+                     Set<String> attributeNames) {
+        this.storageManager = storageManager;
+        this.tableId = schema.getTableId();
+        this.tableName = tableName;
+        this.planner = new QueryPlanner(schema);
+        this.where = where;
+        this.attributeNames = attributeNames;
+    }
+
+    @Override
+    public void open() throws NoTableException, IllegalOperationException {
+        this.fullScan = this.planner.getAccess(this.where) == QueryPlanner.Access.FULL_SCAN;
+        if (this.fullScan) {
+            this.records = new ArrayList<>();
+            this.pagePosition = 0;
+            this.numPages = this.storageManager.ensureTable(this.tableId).getNumPages();
+        } else {
+            this.records = this.planner.getRecords(this.storageManager, this.where);
+        }
+        this.position = 0;
+    }
+
+    @Override
+    public Record next() throws NoTableException, IllegalOperationException {
+        while (this.position == this.records.size()) {
+            if (!this.fullScan || this.pagePosition == this.numPages) {
+                return null;
+            }
+            Page page = this.storageManager.getPage(this.tableId, this.pagePosition++);
+            this.records = page == null ? new ArrayList<>() : page.getRecords();
+            this.position = 0;
+        }
+        return new Record(prefixAttributes(this.records.get(this.position++)));
+    }
+
+    /**
+     * Copy the kept attributes of a record, named table.attributeName. The others are never decoded
+     */
+    private ArrayList<Attribute> prefixAttributes(Record rec) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (String name : rec.getAttributeNames()) {
+            String prefixedName = name.contains(".") ? name : this.tableName + "." + name;
+            if (this.attributeNames != null && !this.attributeNames.contains(prefixedName)) {
+                continue;
+            }
+            // a new attribute of the record's values, the record itself is left alone
+            Attribute attr = rec.getAttribute(name);
+            if (!name.contains(".")) {
+                AttributeSchema newSchema = new AttributeSchema(prefixedName, attr.getAttributeType(), attr.getAttributeId(), attr.isKey(), attr.isUnique(), attr.isNull());
+                attributes.add(new Attribute(newSchema, attr.getData()));
+            } else {
+                attributes.add(attr);
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public void close() {
+        this.records = null;
+    }
+}
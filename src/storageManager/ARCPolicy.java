@@ -0,0 +1,127 @@
+/**
+ * ARC Policy
+ * Adaptive Replacement Cache. Buffered pages are split between T1 (seen once recently) and T2 (seen at least
+ * twice). Ghost lists B1 and B2 remember pages recently evicted from each, and hits on them move the target
+ * size of T1 towards whichever list would have kept the page
+ */
+package storageManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+public class ARCPolicy implements ReplacementPolicy {
+
+    private final int capacity;
+    // target size of T1
+    private double target;
+    private final LinkedHashSet<Long> t1;
+    private final LinkedHashSet<Long> t2;
+    private final LinkedHashSet<Long> b1;
+    private final LinkedHashSet<Long> b2;
+    // set by evict, so pageAdded knows the directory was already adjusted for the incoming page
+    private boolean evicted;
+
+    public ARCPolicy(int capacity) {
+        this.capacity = capacity;
+        this.target = 0;
+        this.t1 = new LinkedHashSet<>();
+        this.t2 = new LinkedHashSet<>();
+        this.b1 = new LinkedHashSet<>();
+        this.b2 = new LinkedHashSet<>();
+        this.evicted = false;
+    }
+
+    @Override
+    public void pageAccessed(long key) {
+        if (t1.remove(key) || t2.remove(key)) {
+            t2.add(key);
+        }
+    }
+
+    @Override
+    public void pageAdded(long key) {
+        if (b1.contains(key) || b2.contains(key)) {
+            if (!evicted) {
+                adapt(key);
+            }
+            b1.remove(key);
+            b2.remove(key);
+            t2.add(key);
+        } else {
+            if (!evicted) {
+                // buffer was not full, only the ghost lists may need trimming
+                if (t1.size() + b1.size() >= capacity && !b1.isEmpty()) {
+                    removeFirst(b1);
+                } else if (t1.size() + t2.size() + b1.size() + b2.size() >= 2 * capacity && !b2.isEmpty()) {
+                    removeFirst(b2);
+                }
+            }
+            t1.add(key);
+        }
+        evicted = false;
+    }
+
+    @Override
+    public long evict(long incomingKey) {
+        evicted = true;
+        if (b1.contains(incomingKey) || b2.contains(incomingKey)) {
+            adapt(incomingKey);
+            return replace(b2.contains(incomingKey));
+        }
+        if (t1.size() + b1.size() >= capacity) {
+            if (t1.size() < capacity) {
+                removeFirst(b1);
+                return replace(false);
+            }
+            // T1 fills the buffer, drop its LRU page without remembering it
+            return removeFirst(t1);
+        }
+        if (t1.size() + t2.size() + b1.size() + b2.size() >= 2 * capacity) {
+            removeFirst(b2);
+        }
+        return replace(false);
+    }
+
+    @Override
+    public void pageRemoved(long key) {
+        if (!t1.remove(key)) {
+            t2.remove(key);
+        }
+    }
+
+    /**
+     * Evict from T1 or T2 depending on the target size of T1, remembering the victim in the matching ghost list
+     * @param incomingInB2 whether the incoming page is a hit in B2
+     * @return the evicted page
+     */
+    private long replace(boolean incomingInB2) {
+        if (!t1.isEmpty() && (t1.size() > target || (incomingInB2 && t1.size() == (int) target) || t2.isEmpty())) {
+            long victim = removeFirst(t1);
+            b1.add(victim);
+            return victim;
+        }
+        long victim = removeFirst(t2);
+        b2.add(victim);
+        return victim;
+    }
+
+    private void adapt(long key) {
+        if (b1.contains(key)) {
+            target = Math.min(capacity, target + Math.max((double) b2.size() / b1.size(), 1));
+        } else {
+            target = Math.max(0, target - Math.max((double) b1.size() / b2.size(), 1));
+        }
+    }
+
+    private static long removeFirst(LinkedHashSet<Long> list) {
+        Iterator<Long> first = list.iterator();
+        long key = first.next();
+        first.remove();
+        return key;
+    }
+
+    @Override
+    public String getName() {
+        return "ARC";
+    }
+}
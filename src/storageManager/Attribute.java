@@ -7,8 +7,7 @@ package storageManager;
 
 import catalog.AttributeSchema;
 import catalog.AttributeType;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -32,27 +31,101 @@ public class Attribute extends AttributeSchema implements Comparable<Attribute>,
         return this.data;
     }
 
-    public void serialize(DataOutputStream dos) throws IOException {
+    /**
+     * Write this attribute's data into a buffer. Null data is a single 0 byte, strings are padded to the attribute size
+     * @param buffer   buffer to write into
+     * @param position offset in the buffer to write at
+     * @return number of bytes written
+     */
+    public int serialize(ByteBuffer buffer, int position) {
+        return serialize(buffer, position, getAttributeType().type, data, getSize());
+    }
+
+    /**
+     * Write a value into a buffer
+     * @param buffer       buffer to write into
+     * @param position     offset in the buffer to write at
+     * @param type         type of the value
+     * @param data         the value, null is a single 0 byte
+     * @param stringLength length strings are padded to with spaces
+     * @return number of bytes written
+     */
+    static int serialize(ByteBuffer buffer, int position, AttributeType.TYPE type, Object data, int stringLength) {
+        if (data == null) {
+            buffer.put(position, (byte) 0);
+            return 1;
+        }
+        switch (type) {
+            case INT:
+                buffer.putInt(position, (Integer) data);
+                return Integer.BYTES;
+            case DOUBLE:
+                buffer.putDouble(position, (Double) data);
+                return Double.BYTES;
+            case BOOLEAN:
+                buffer.put(position, (byte) ((Boolean) data ? 1 : 0));
+                return 1;
+            case CHAR:
+            case VARCHAR:
+                return serializeString(buffer, position, (String) data, stringLength);
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of bytes serialize writes for a value
+     * @see #serialize(ByteBuffer, int, AttributeType.TYPE, Object, int)
+     */
+    static int serializedSize(AttributeType.TYPE type, Object data, int stringLength) {
         if (data == null) {
-            dos.writeByte(0);
-            return;
+            return 1;
         }
-        switch (getAttributeType().type) {
+        switch (type) {
             case INT:
-                dos.writeInt((Integer) data);
-                break;
+                return Integer.BYTES;
             case DOUBLE:
-                dos.writeDouble((Double) data);
-                break;
+                return Double.BYTES;
             case BOOLEAN:
-                dos.writeBoolean((Boolean) data);
-                break;
+                return 1;
             case CHAR:
             case VARCHAR:
-                byte[] stringBytes = (Page.ljust((String) data, getSize())).getBytes();
-                dos.write(stringBytes);
-                break;
+                String string = (String) data;
+                if (isAscii(string)) {
+                    return Math.max(string.length(), stringLength);
+                }
+                return Page.ljust(string, stringLength).getBytes().length;
+        }
+        return 0;
+    }
+
+    /**
+     * Write a string padded with spaces to a length, copying ASCII characters directly into the buffer
+     * @return number of bytes written
+     */
+    private static int serializeString(ByteBuffer buffer, int position, String string, int length) {
+        if (!isAscii(string)) {
+            // multi byte characters go through the platform encoding
+            byte[] stringBytes = Page.ljust(string, length).getBytes();
+            buffer.put(position, stringBytes);
+            return stringBytes.length;
+        }
+        int stringLength = string.length();
+        for (int i = 0; i < stringLength; i++) {
+            buffer.put(position + i, (byte) string.charAt(i));
+        }
+        for (int i = stringLength; i < length; i++) {
+            buffer.put(position + i, (byte) ' ');
+        }
+        return Math.max(stringLength, length);
+    }
+
+    private static boolean isAscii(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 0x80) {
+                return false;
+            }
         }
+        return true;
     }
 
     @Override
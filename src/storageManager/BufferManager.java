@@ -6,6 +6,7 @@
 package storageManager;
 
 import BPlusTree.Index;
+import BPlusTree.TreeNode;
 import Exceptions.IllegalOperationException;
 import Exceptions.NoTableException;
 import Exceptions.PageOverfullException;
@@ -13,25 +14,66 @@ import catalog.Catalog;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class BufferManager {
 
-    private ArrayList<Page> buffer;
+    // page table keyed by (tableId, pageId)
+    private final HashMap<Long, Page> buffer;
     private final int bufferSize;
+    private final HashMap<Integer, Table> idToTable;
+    private final ReplacementPolicy policy;
 
-    public BufferManager(int bufferSize) {
+    // index nodes keyed like pages by the id of their node file, least recently used first. Nodes use the frames
+    // pages are not using
+    private final LinkedHashMap<Long, TreeNode> nodes;
+    private final HashSet<Long> dirtyNodes;
+    // frames nodes keep when pages fill the buffer, enough for the top levels of a tree
+    private static final int RESERVED_NODE_FRAMES = 4;
+    // node file ids hold the table id in their low bits and the attribute of a secondary index above them
+    private static final int NODE_FILE_ATTRIBUTE_SHIFT = 20;
+    private static final int NODE_FILE_TABLE_MASK = (1 << NODE_FILE_ATTRIBUTE_SHIFT) - 1;
+
+    // buffer statistics, used to compare replacement policies
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long nodeHits;
+    private long nodeMisses;
+
+    public BufferManager(int bufferSize, HashMap<Integer, Table> idToTable, ReplacementPolicy policy) {
         this.bufferSize = bufferSize;
-        this.buffer = new ArrayList<Page>(bufferSize);
+        this.idToTable = idToTable;
+        this.policy = policy;
+        this.buffer = new HashMap<>(bufferSize);
+        this.nodes = new LinkedHashMap<>(16, 0.75f, true);
+        this.dirtyNodes = new HashSet<>();
+    }
+
+    /**
+     * Build the page table key for a page
+     * @param tableId id of the table the page belongs to
+     * @param pageId  id of the page within the table
+     * @return key unique to the (tableId, pageId) pair
+     */
+    private static long pageKey(int tableId, int pageId) {
+        return ((long) tableId << 32) | (pageId & 0xFFFFFFFFL);
     }
 
     public Page getPage(Table table, int pageNumber) {
-        for (Page page : buffer) {
-            if (page.getPageTableId() == table.schema.getTableId() && page.getPageId() == pageNumber) {
-                return page;
-            }
+        long key = pageKey(table.schema.getTableId(), pageNumber);
+        Page page = buffer.get(key);
+        if (page != null) {
+            hits++;
+            policy.pageAccessed(key);
+            return page;
         }
         // If not in the buffer
-        Page page = table.readPage(pageNumber);
+        misses++;
+        page = table.readPage(pageNumber);
         if (page != null) {
             addToBuffer(table, page);
         }
@@ -41,10 +83,10 @@ public class BufferManager {
     public void insertRecord(Table table, Page insertPage, Record record, int insertIndex) {
         try {
             insertPage.insertRecord(record, insertIndex);
-            // On insert, create an index and update all those shifted to the right
+            table.updatePageSummary(insertPage);
+            // On insert, create an index. Records shifted to the right keep theirs, slots are only hints
             if (Catalog.getCatalog().getIndexing()) {
                 table.insertNode(record.getPrimaryKey(), new Index(insertPage.getPageId(), insertIndex));
-                insertPage.updateIndices(table, insertIndex);
             }
         } catch (IndexOutOfBoundsException ioobe) {
             System.out.println(ioobe.getMessage());
@@ -55,60 +97,199 @@ public class BufferManager {
     }
 
     public void addToBuffer(Table table, Page page) {
-        if (buffer.size() == this.bufferSize) {
-            int leastUsedPageIndex = this.getLRUPageIndex();
-            Page removedPage = buffer.remove(leastUsedPageIndex);
-            if (removedPage.hasBeenUpdated()) {
-                table.writePage(removedPage);
-            }
+        long key = pageKey(page.getPageTableId(), page.getPageId());
+        if (buffer.size() >= this.bufferSize) {
+            evictPage(key);
+        }
+        this.buffer.put(key, page);
+        policy.pageAdded(key);
+        trimNodes();
+    }
+
+    /**
+     * Id of a file of index nodes in the node cache, the table's id for its primary key index and the table's id
+     * with the attribute's id above it for a secondary index
+     * @param tableId     id of the table
+     * @param attributeId id of the attribute of a secondary index, -1 for the primary key index
+     * @return id of the node file
+     */
+    static int nodeFileId(int tableId, int attributeId) {
+        return ((attributeId + 1) << NODE_FILE_ATTRIBUTE_SHIFT) | tableId;
+    }
+
+    /**
+     * Get a cached index node. The node is shared with the cache and must not be changed
+     * @param nodeFileId id of the file the node belongs to
+     * @param nodeNumber number of the node
+     * @return the node, null if it is not cached
+     */
+    TreeNode getNode(int nodeFileId, int nodeNumber) {
+        TreeNode node = this.nodes.get(pageKey(nodeFileId, nodeNumber));
+        if (node == null) {
+            nodeMisses++;
+        } else {
+            nodeHits++;
+        }
+        return node;
+    }
+
+    /**
+     * Cache an index node, replacing any cached version of it
+     * @param nodeFileId id of the file the node belongs to
+     * @param node       node to cache, not changed afterward
+     * @param dirty      whether the node differs from the node file
+     */
+    void putNode(int nodeFileId, TreeNode node, boolean dirty) {
+        long key = pageKey(nodeFileId, node.getNodeNumber());
+        this.nodes.put(key, node);
+        if (dirty) {
+            this.dirtyNodes.add(key);
         }
-        page.touch();
-        this.buffer.add(page);
+        trimNodes();
     }
 
-    public int getLRUPageIndex() {
-        long oldestTime = Long.MAX_VALUE;
-        int oldestIndex = 0;
-        for (int i = 0; i < this.buffer.size(); i++) {
-            long lastUpdated = this.buffer.get(i).getUpdatedAt();
-            if (lastUpdated < oldestTime) {
-                oldestTime = lastUpdated;
-                oldestIndex = i;
+    /**
+     * Remove the least recently used nodes until nodes fit in the frames left over by pages,
+     * writing those that changed to their node file
+     */
+    private void trimNodes() {
+        int capacity = Math.max(this.bufferSize - this.buffer.size(), RESERVED_NODE_FRAMES);
+        Iterator<Map.Entry<Long, TreeNode>> entries = this.nodes.entrySet().iterator();
+        while (this.nodes.size() > capacity && entries.hasNext()) {
+            Map.Entry<Long, TreeNode> eldest = entries.next();
+            entries.remove();
+            if (this.dirtyNodes.remove(eldest.getKey())) {
+                writeNodeToFile(eldest.getKey(), eldest.getValue());
             }
         }
-        return oldestIndex;
     }
 
-    public void flush(HashMap<Integer, Table> idToTable) {
-        for (Page page : this.buffer) {
+    /**
+     * Write a cached node to the file it belongs to, the node file of its table or of a secondary index
+     * @param key  cache key of the node
+     * @param node the node
+     */
+    private void writeNodeToFile(long key, TreeNode node) {
+        int nodeFileId = (int) (key >>> 32);
+        Table table = idToTable.get(nodeFileId & NODE_FILE_TABLE_MASK);
+        int attributeId = (nodeFileId >>> NODE_FILE_ATTRIBUTE_SHIFT) - 1;
+        if (attributeId == -1) {
+            table.writeNodeToFile(node);
+            return;
+        }
+        SecondaryIndex secondaryIndex = table.getSecondaryIndex(attributeId);
+        if (secondaryIndex != null) {
+            secondaryIndex.writeNodeToFile(node);
+        }
+    }
+
+    /**
+     * Remove the page chosen by the replacement policy from the buffer, writing it to its table if it was modified
+     * @param incomingKey page table key of the page that needs the frame
+     */
+    private void evictPage(long incomingKey) {
+        Page removedPage = this.buffer.remove(policy.evict(incomingKey));
+        evictions++;
+        if (removedPage.hasBeenUpdated()) {
+            idToTable.get(removedPage.getPageTableId()).writePage(removedPage);
+        }
+    }
+
+    public void flush() {
+        for (Page page : this.buffer.values()) {
             if (page.hasBeenUpdated()) {
                 idToTable.get(page.getPageTableId()).writePage(page);
             }
         }
-        this.buffer = new ArrayList<Page>();
+        for (long key : new ArrayList<>(this.buffer.keySet())) {
+            policy.pageRemoved(key);
+        }
+        this.buffer.clear();
+        for (Map.Entry<Long, TreeNode> entry : this.nodes.entrySet()) {
+            if (this.dirtyNodes.contains(entry.getKey())) {
+                writeNodeToFile(entry.getKey(), entry.getValue());
+            }
+        }
+        this.nodes.clear();
+        this.dirtyNodes.clear();
+    }
+
+    /**
+     * Drop all of a table's pages and index nodes from the buffer without writing them
+     * @param tableId id of the table
+     */
+    public void discardTable(int tableId) {
+        for (long key : new ArrayList<>(this.buffer.keySet())) {
+            if (this.buffer.get(key).getPageTableId() == tableId) {
+                this.buffer.remove(key);
+                policy.pageRemoved(key);
+            }
+        }
+        discardNodes(tableId);
+    }
+
+    /**
+     * Drop all of a table's index nodes from the buffer without writing them, those of its secondary indexes too
+     * @param tableId id of the table
+     */
+    void discardNodes(int tableId) {
+        this.nodes.keySet().removeIf(key -> ((int) (key >>> 32) & NODE_FILE_TABLE_MASK) == tableId);
+        this.dirtyNodes.removeIf(key -> ((int) (key >>> 32) & NODE_FILE_TABLE_MASK) == tableId);
+    }
+
+    /**
+     * Drop the nodes of one node file from the buffer without writing them
+     * @param nodeFileId id of the node file
+     */
+    void discardNodeFile(int nodeFileId) {
+        this.nodes.keySet().removeIf(key -> (int) (key >>> 32) == nodeFileId);
+        this.dirtyNodes.removeIf(key -> (int) (key >>> 32) == nodeFileId);
+    }
+
+    /**
+     * Fraction of page requests that were served from the buffer
+     * @return hit ratio between 0 and 1, 0 if no pages were requested
+     */
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public String getStatistics() {
+        return "Replacement policy: " + policy.getName() +
+                "\nBuffer frames: " + buffer.size() + "/" + bufferSize +
+                "\nHits: " + hits +
+                "\nMisses: " + misses +
+                "\nEvictions: " + evictions +
+                "\nHit ratio: " + String.format("%.4f", getHitRatio()) +
+                "\nIndex nodes cached: " + nodes.size() +
+                "\nIndex node hits: " + nodeHits +
+                "\nIndex node misses: " + nodeMisses;
     }
 
     public Record deleteRecord(Table table, Attribute primaryKey, Index index) throws NoTableException, IllegalOperationException {
         if (Catalog.getCatalog().getIndexing()) {
             Page page = getPage(table, index.pageNumber);
-            Record deleted = page.deleteRecord(index.recordPointer);
+            Record deleted = page.deleteRecord(page.getRecordByKey(primaryKey, index.recordPointer));
             table.deleteNode(primaryKey.getData());
-            page.updateIndices(table, index.recordPointer);
             if (page.getRecords().isEmpty()) {
                 handleEmptyPageRemoval(table, page);
+            } else {
+                table.updatePageSummary(page);
             }
             return deleted;
-        } else {
-            for (int i = 0; i < table.getNumPages(); i++) {
-                Page page = this.getPage(table, i);
-                int recordIndex = page.getRecordByKey(primaryKey);
-                if (recordIndex != -1) {
-                    Record deleted = page.deleteRecord(recordIndex);
-                    if (page.getRecords().size() == 0) {
-                        handleEmptyPageRemoval(table, page);
-                    }
-                    return deleted;
+        } else if (table.getNumPages() > 0) {
+            // only the page whose key range holds the key can have the record
+            Page page = this.getPage(table, table.findPage(primaryKey.getData()));
+            int recordIndex = page.getRecordByKey(primaryKey);
+            if (recordIndex != -1) {
+                Record deleted = page.deleteRecord(recordIndex);
+                if (page.getRecords().size() == 0) {
+                    handleEmptyPageRemoval(table, page);
+                } else {
+                    table.updatePageSummary(page);
                 }
+                return deleted;
             }
         }
         return null; 
@@ -116,56 +297,23 @@ public class BufferManager {
 
 
     public Record getRecordByPrimaryKey(Table table, Attribute primaryKey) {
-        for (int i = 0; i < table.getNumPages(); i++) {
-            Page page = this.getPage(table, i);
-            int recordIndex = page.getRecordByKey(primaryKey);
-            if (recordIndex != -1) {
-                return page.getRecords().get(recordIndex);
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Update page number/ids after a page split
-     * @param table       table the page split
-     * @param removedPageId id of the new page
-     * @throws NoTableException No table of tableId
-     */
-    public void updatePageNumbers(Table table, int removedPageId, int change) throws IllegalOperationException {
-        if (change > 0) {
-            // start from the end to avoid duplicate IDs in buffer at one time
-            for (int i = table.getNumPages() - 1; i >= removedPageId; i--) {
-                Page page = getPage(table, i);
-                page.updatePageNumber(change);
-                page.updateIndices(table, 0);
-            }
-        } else {
-            // start from the beginning to avoid duplicate IDs in buffer at one time
-            for (int i = removedPageId + 1; i < table.getNumPages(); i++) {
-                Page page = getPage(table, i);
-                page.updatePageNumber(change);
-                page.updateIndices(table, 0);
-            }
+        if (table.getNumPages() == 0) {
+            return null;
         }
-
-        table.updatePageCount(change);
-    }
-
-    private int getIndexInBuffer(int pageNumber) {
-        for (int i = 0; i < this.buffer.size(); i++) {
-            if (buffer.get(i).getPageId() == pageNumber) {
-                return i;
-            }
+        Page page = this.getPage(table, table.findPage(primaryKey.getData()));
+        int recordIndex = page.getRecordByKey(primaryKey);
+        if (recordIndex != -1) {
+            return page.getRecords().get(recordIndex);
         }
-        return -1;
+        return null;
     }
 
-    private void handleEmptyPageRemoval(Table table, Page page) throws NoTableException, IllegalOperationException {
-        int toRemove = this.getIndexInBuffer(page.getPageId());
-        if (toRemove != -1) {
-            this.buffer.remove(toRemove);
+    private void handleEmptyPageRemoval(Table table, Page page) {
+        long key = pageKey(page.getPageTableId(), page.getPageId());
+        if (this.buffer.remove(key) != null) {
+            policy.pageRemoved(key);
         }
-        updatePageNumbers(table, page.getPageId(), -1);
+        table.clearPage(page.getPageId());
+        table.removePage(page.getPageId());
     }
 }
@@ -0,0 +1,86 @@
+/**
+ * Clock Policy
+ * Second chance approximation of LRU. A hand sweeps the frames, clearing reference bits until it finds an
+ * unreferenced page to evict
+ */
+package storageManager;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+public class ClockPolicy implements ReplacementPolicy {
+
+    private final long[] frames;
+    private final boolean[] referenced;
+    private final boolean[] occupied;
+    private final HashMap<Long, Integer> frameOf;
+    private final ArrayDeque<Integer> freeFrames;
+    private int hand;
+
+    public ClockPolicy(int capacity) {
+        this.frames = new long[capacity];
+        this.referenced = new boolean[capacity];
+        this.occupied = new boolean[capacity];
+        this.frameOf = new HashMap<>(capacity);
+        this.freeFrames = new ArrayDeque<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            freeFrames.add(i);
+        }
+        this.hand = 0;
+    }
+
+    @Override
+    public void pageAccessed(long key) {
+        Integer frame = frameOf.get(key);
+        if (frame != null) {
+            referenced[frame] = true;
+        }
+    }
+
+    @Override
+    public void pageAdded(long key) {
+        int frame = freeFrames.remove();
+        frames[frame] = key;
+        referenced[frame] = true;
+        occupied[frame] = true;
+        frameOf.put(key, frame);
+    }
+
+    @Override
+    public long evict(long incomingKey) {
+        while (true) {
+            int frame = hand;
+            hand = (hand + 1) % frames.length;
+            if (!occupied[frame]) {
+                continue;
+            }
+            if (referenced[frame]) {
+                referenced[frame] = false;
+            } else {
+                long victim = frames[frame];
+                release(frame);
+                return victim;
+            }
+        }
+    }
+
+    @Override
+    public void pageRemoved(long key) {
+        Integer frame = frameOf.get(key);
+        if (frame != null) {
+            release(frame);
+        }
+    }
+
+    private void release(int frame) {
+        frameOf.remove(frames[frame]);
+        occupied[frame] = false;
+        referenced[frame] = false;
+        freeFrames.add(frame);
+    }
+
+    @Override
+    public String getName() {
+        return "CLOCK";
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * Hash Index
+ * Extendible hash table from the primary keys of a table to the ids of the pages holding them. A key is found by
+ * reading the one bucket its hash leads to, without descending the B+ tree. Buckets are a page each in their own
+ * file, the directory from hashes to buckets is kept in memory and written to a file of its own whenever it changes
+ */
+package storageManager;
+
+import Exceptions.IllegalOperationException;
+import catalog.AttributeSchema;
+import catalog.Catalog;
+import catalog.TableSchema;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+public class HashIndex {
+    // local depth | number of entries
+    private static final int BUCKET_HEADER_SIZE = 8;
+    // past this many hash bits the keys of a full bucket share their hash and splitting can not separate them
+    private static final int MAX_DEPTH = 24;
+
+    /**
+     * A bucket read from the bucket file, its keys and the ids of their pages
+     */
+    private static class Bucket {
+        private final int bucketNumber;
+        private int localDepth;
+        private final ArrayList<Object> keys = new ArrayList<>();
+        private final ArrayList<Integer> pageIds = new ArrayList<>();
+
+        private Bucket(int bucketNumber, int localDepth) {
+            this.bucketNumber = bucketNumber;
+            this.localDepth = localDepth;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < this.keys.size(); i++) {
+                if (Attribute.compareTo(key, this.keys.get(i)) == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final TableSchema schema;
+    private final AttributeSchema primaryKeySchema;
+    private final int capacity;
+
+    // bucket numbers by the low globalDepth bits of a hash, a bucket of a lower local depth is in it more than once
+    private int globalDepth;
+    private int[] directory;
+    private int numBuckets;
+
+    private RandomAccessFile bucketFile;
+    private ByteBuffer bucketBuffer;
+
+    public HashIndex(TableSchema schema) {
+        this.schema = schema;
+        this.primaryKeySchema = schema.getPrimaryKey();
+        this.capacity = Math.floorDiv(Catalog.getCatalog().getPageSize() - BUCKET_HEADER_SIZE,
+                this.primaryKeySchema.getSize() + 4);
+        try {
+            readDirectory();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Read the directory from its file, starting with one empty bucket without a file
+     */
+    private void readDirectory() throws IOException {
+        File directoryFile = new File(this.schema.getHashDirectoryLocation());
+        if (directoryFile.exists()) {
+            // global depth | number of buckets | bucket numbers[]
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(directoryFile.toPath()));
+            this.globalDepth = buffer.getInt();
+            this.numBuckets = buffer.getInt();
+            this.directory = new int[1 << this.globalDepth];
+            for (int i = 0; i < this.directory.length; i++) {
+                this.directory[i] = buffer.getInt();
+            }
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Write the directory to its file. It is written beside the file and moved over it, so a crash leaves either
+     * the old directory or the new one
+     */
+    private void writeDirectory() throws IllegalOperationException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 * this.directory.length);
+        buffer.putInt(this.globalDepth);
+        buffer.putInt(this.numBuckets);
+        for (int bucketNumber : this.directory) {
+            buffer.putInt(bucketNumber);
+        }
+        Path location = Path.of(this.schema.getHashDirectoryLocation());
+        Path written = Path.of(this.schema.getHashDirectoryLocation() + ".new");
+        try {
+            Files.write(written, buffer.array());
+            Files.move(written, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalOperationException(e.getMessage());
+        }
+    }
+
+    /**
+     * Throw away every key, leaving one empty bucket
+     */
+    public void clear() {
+        try {
+            getBucketFile().getChannel().truncate(0);
+            this.globalDepth = 0;
+            this.directory = new int[]{0};
+            this.numBuckets = 1;
+            writeBucket(new Bucket(0, 0));
+            writeDirectory();
+        } catch (IOException | IllegalOperationException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Hash of a key, with the high bits folded into the low bits the directory is indexed by
+     */
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private int getBucketNumber(Object key) {
+        return this.directory[hash(key) & ((1 << this.globalDepth) - 1)];
+    }
+
+    /**
+     * Find the page a primary key is on
+     * @param key primary key value
+     * @return page id, null if the table does not have the key
+     */
+    public Integer get(Object key) throws IllegalOperationException {
+        Bucket bucket = readBucket(getBucketNumber(key));
+        int index = bucket.find(key);
+        return index == -1 ? null : bucket.pageIds.get(index);
+    }
+
+    /**
+     * Point a primary key at the page holding it, adding the key if it is new
+     * @param key    primary key value
+     * @param pageId id of the page the record is on
+     * @throws IllegalOperationException the bucket of the key is full of keys with its hash
+     */
+    public void put(Object key, int pageId) throws IllegalOperationException {
+        Bucket bucket = readBucket(getBucketNumber(key));
+        int index = bucket.find(key);
+        if (index != -1) {
+            if (bucket.pageIds.get(index) != pageId) {
+                bucket.pageIds.set(index, pageId);
+                writeBucket(bucket);
+            }
+            return;
+        }
+        while (bucket.keys.size() >= this.capacity) {
+            splitBucket(bucket);
+            bucket = readBucket(getBucketNumber(key));
+        }
+        bucket.keys.add(key);
+        bucket.pageIds.add(pageId);
+        writeBucket(bucket);
+    }
+
+    /**
+     * Point every record of a page at it, after the records moved there
+     * @param page page the records are on
+     */
+    public void putAll(Page page) throws IllegalOperationException {
+        for (Record record : page.getRecords()) {
+            put(record.getPrimaryKeyValue(), page.getPageId());
+        }
+    }
+
+    /**
+     * Remove a primary key. Buckets are not merged, a bucket that empties takes keys again
+     * @param key primary key value
+     * @return whether the key was there
+     */
+    public boolean remove(Object key) throws IllegalOperationException {
+        Bucket bucket = readBucket(getBucketNumber(key));
+        int index = bucket.find(key);
+        if (index == -1) {
+            return false;
+        }
+        bucket.keys.remove(index);
+        bucket.pageIds.remove(index);
+        writeBucket(bucket);
+        return true;
+    }
+
+    /**
+     * Split a full bucket on the next bit of its keys' hashes, doubling the directory when the bucket already
+     * uses every bit of it. The new bucket is written before the directory points at it, and the old bucket keeps
+     * the moved keys until the directory is written, so a crash part way through loses no key
+     */
+    private void splitBucket(Bucket bucket) throws IllegalOperationException {
+        if (bucket.localDepth == MAX_DEPTH) {
+            throw new IllegalOperationException("Hash index of " + this.schema.getTableName() +
+                    " has more keys with the same hash than fit in a bucket");
+        }
+        if (bucket.localDepth == this.globalDepth) {
+            int[] doubled = new int[this.directory.length * 2];
+            System.arraycopy(this.directory, 0, doubled, 0, this.directory.length);
+            System.arraycopy(this.directory, 0, doubled, this.directory.length, this.directory.length);
+            this.directory = doubled;
+            this.globalDepth++;
+        }
+        int bit = 1 << bucket.localDepth;
+        Bucket low = new Bucket(bucket.bucketNumber, bucket.localDepth + 1);
+        Bucket high = new Bucket(this.numBuckets++, bucket.localDepth + 1);
+        for (int i = 0; i < bucket.keys.size(); i++) {
+            Bucket to = (hash(bucket.keys.get(i)) & bit) == 0 ? low : high;
+            to.keys.add(bucket.keys.get(i));
+            to.pageIds.add(bucket.pageIds.get(i));
+        }
+        for (int i = 0; i < this.directory.length; i++) {
+            if (this.directory[i] == bucket.bucketNumber && (i & bit) != 0) {
+                this.directory[i] = high.bucketNumber;
+            }
+        }
+        writeBucket(high);
+        writeDirectory();
+        writeBucket(low);
+    }
+
+    private RandomAccessFile getBucketFile() throws IOException {
+        if (this.bucketFile == null) {
+            this.bucketFile = new RandomAccessFile(this.schema.getHashIndexLocation(), "rw");
+        }
+        return this.bucketFile;
+    }
+
+    private ByteBuffer getBucketBuffer() {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        if (this.bucketBuffer == null || this.bucketBuffer.capacity() != pageSize) {
+            this.bucketBuffer = ByteBuffer.allocate(pageSize);
+        }
+        this.bucketBuffer.clear();
+        return this.bucketBuffer;
+    }
+
+    /**
+     * Read a bucket with one read of its page
+     * local depth | number of entries | (key | page id)[] | free space
+     */
+    private Bucket readBucket(int bucketNumber) throws IllegalOperationException {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        ByteBuffer buffer = getBucketBuffer();
+        try {
+            Table.readFully(getBucketFile().getChannel(), buffer, (long) bucketNumber * pageSize);
+        } catch (EOFException eof) {
+            throw new IllegalOperationException("Hash bucket " + bucketNumber + " of " + this.schema.getTableName() +
+                    " is past the end of its file");
+        } catch (IOException e) {
+            throw new IllegalOperationException(e.getMessage());
+        }
+        Bucket bucket = new Bucket(bucketNumber, buffer.getInt(0));
+        int numEntries = buffer.getInt(4);
+        int keySize = this.primaryKeySchema.getSize();
+        int position = BUCKET_HEADER_SIZE;
+        for (int i = 0; i < numEntries; i++) {
+            bucket.keys.add(Table.readValue(buffer, position, keySize, this.primaryKeySchema.getAttributeType().type));
+            bucket.pageIds.add(buffer.getInt(position + keySize));
+            position += keySize + 4;
+        }
+        return bucket;
+    }
+
+    private void writeBucket(Bucket bucket) throws IllegalOperationException {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        ByteBuffer buffer = getBucketBuffer();
+        buffer.putInt(0, bucket.localDepth);
+        buffer.putInt(4, bucket.keys.size());
+        int keySize = this.primaryKeySchema.getSize();
+        int position = BUCKET_HEADER_SIZE;
+        for (int i = 0; i < bucket.keys.size(); i++) {
+            Attribute.serialize(buffer, position, this.primaryKeySchema.getAttributeType().type, bucket.keys.get(i), keySize);
+            buffer.putInt(position + keySize, bucket.pageIds.get(i));
+            position += keySize + 4;
+        }
+        Page.fillZeroes(buffer, position, pageSize - position);
+        try {
+            Table.writeFully(getBucketFile().getChannel(), buffer, (long) bucket.bucketNumber * pageSize);
+        } catch (IOException e) {
+            throw new IllegalOperationException(e.getMessage());
+        }
+    }
+
+    /**
+     * Close the bucket file, it is reopened if the index is used again
+     */
+    public void close() {
+        try {
+            if (this.bucketFile != null) {
+                this.bucketFile.close();
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        this.bucketFile = null;
+    }
+
+    /**
+     * Close and delete the bucket and directory files
+     */
+    public void drop() {
+        close();
+        new File(this.schema.getHashIndexLocation()).delete();
+        new File(this.schema.getHashDirectoryLocation()).delete();
+    }
+}
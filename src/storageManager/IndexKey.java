@@ -0,0 +1,100 @@
+/**
+ * Index Key
+ * Key of a secondary index, an attribute's value followed by the primary key of the record holding it. The primary
+ * key keeps keys unique when many records share a value, and is how the record is found
+ */
+package storageManager;
+
+import catalog.AttributeSchema;
+
+import java.nio.ByteBuffer;
+
+public class IndexKey extends Attribute {
+
+    // serializable through AttributeSchema, though keys are only ever written to index nodes
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    // null only in keys searched for, it comes before every primary key
+    private final Object primaryKey;
+    private final AttributeSchema primaryKeySchema;
+
+    /**
+     * @param attributeSchema  schema of the indexed attribute
+     * @param value            value of the attribute, not null
+     * @param primaryKeySchema schema of the table's primary key
+     * @param primaryKey       primary key of the record, null to search for the first key of the value
+     */
+    public IndexKey(AttributeSchema attributeSchema, Object value, AttributeSchema primaryKeySchema, Object primaryKey) {
+        super(attributeSchema, value);
+        this.value = value;
+        this.primaryKey = primaryKey;
+        this.primaryKeySchema = primaryKeySchema;
+    }
+
+    public Object getValue() {
+        return this.value;
+    }
+
+    public Object getPrimaryKey() {
+        return this.primaryKey;
+    }
+
+    /**
+     * Keys compare as themselves, so the tree orders them by value and then primary key
+     * @return this key
+     */
+    @Override
+    public Object getData() {
+        return this;
+    }
+
+    @Override
+    public int compareTo(Attribute o) {
+        IndexKey other = (IndexKey) o;
+        int comparison = Attribute.compareTo(this.value, other.value);
+        if (comparison != 0 || this.primaryKey == other.primaryKey) {
+            return comparison;
+        } else if (this.primaryKey == null || other.primaryKey == null) {
+            return this.primaryKey == null ? -1 : 1;
+        }
+        return Attribute.compareTo(this.primaryKey, other.primaryKey);
+    }
+
+    /**
+     * Size of the key in an index node, strings take the attribute's full length
+     * @return size in bytes
+     */
+    @Override
+    public int getSize() {
+        return super.getSize() + this.primaryKeySchema.getSize();
+    }
+
+    @Override
+    public int serialize(ByteBuffer buffer, int position) {
+        int written = serialize(buffer, position, getAttributeType().type, this.value, super.getSize());
+        return written + serialize(buffer, position + written, this.primaryKeySchema.getAttributeType().type,
+                this.primaryKey, this.primaryKeySchema.getSize());
+    }
+
+    /**
+     * Read a key written by serialize
+     * @param buffer           buffer holding the key
+     * @param position         offset of the key in the buffer
+     * @param attributeSchema  schema of the indexed attribute
+     * @param primaryKeySchema schema of the table's primary key
+     * @return the key
+     */
+    static IndexKey read(ByteBuffer buffer, int position, AttributeSchema attributeSchema, AttributeSchema primaryKeySchema) {
+        int valueSize = attributeSchema.getSize();
+        Object value = Table.readValue(buffer, position, valueSize, attributeSchema.getAttributeType().type);
+        Object primaryKey = Table.readValue(buffer, position + valueSize, primaryKeySchema.getSize(),
+                primaryKeySchema.getAttributeType().type);
+        return new IndexKey(attributeSchema, value, primaryKeySchema, primaryKey);
+    }
+
+    @Override
+    public String toString() {
+        return this.value + ":" + this.primaryKey;
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Key Range
+ * Range of primary key values a scan has to cover, each end either open, inclusive or exclusive
+ */
+package storageManager;
+
+import catalog.AttributeType;
+
+import java.util.ArrayList;
+
+public class KeyRange {
+    // null ends are unbounded
+    private final Object low;
+    private final boolean lowInclusive;
+    private final Object high;
+    private final boolean highInclusive;
+
+    public KeyRange(Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.high = high;
+        this.highInclusive = highInclusive;
+    }
+
+    /**
+     * Range of every key
+     * @return unbounded range
+     */
+    public static KeyRange all() {
+        return new KeyRange(null, false, null, false);
+    }
+
+    /**
+     * Range of a single key
+     * @param key the key
+     * @return range holding only the key
+     */
+    public static KeyRange of(Object key) {
+        return new KeyRange(key, true, key, true);
+    }
+
+    public Object getLow() {
+        return this.low;
+    }
+
+    public boolean isLowInclusive() {
+        return this.lowInclusive;
+    }
+
+    public Object getHigh() {
+        return this.high;
+    }
+
+    public boolean isHighInclusive() {
+        return this.highInclusive;
+    }
+
+    public boolean isUnbounded() {
+        return this.low == null && this.high == null;
+    }
+
+    /**
+     * Check whether the range holds exactly one key
+     * @return whether both ends are the same inclusive key
+     */
+    public boolean isPoint() {
+        return this.low != null && this.lowInclusive && this.highInclusive && this.high != null
+                && Attribute.compareTo(this.low, this.high) == 0;
+    }
+
+    /**
+     * Check whether the ends of the range are values of a type, only those can be compared to keys of the type
+     * @param type type of the keys
+     * @return whether every bounded end is of the type
+     */
+    public boolean isOfType(AttributeType type) {
+        return isValueOfType(this.low, type) && isValueOfType(this.high, type);
+    }
+
+    private static boolean isValueOfType(Object value, AttributeType type) {
+        if (value == null) {
+            return true;
+        }
+        switch (type.type) {
+            case INT:
+                return value instanceof Integer;
+            case DOUBLE:
+                return value instanceof Double;
+            case BOOLEAN:
+                return value instanceof Boolean;
+            default:
+                return value instanceof String;
+        }
+    }
+
+    /**
+     * Check whether no key can be in the range
+     * @return whether the range is empty
+     */
+    public boolean isEmpty() {
+        if (this.low == null || this.high == null) {
+            return false;
+        }
+        int comparison = Attribute.compareTo(this.low, this.high);
+        return comparison > 0 || (comparison == 0 && !(this.lowInclusive && this.highInclusive));
+    }
+
+    /**
+     * Check whether a key comes before the range
+     * @param key primary key value
+     * @return whether the key is below the low end
+     */
+    public boolean isBelow(Object key) {
+        if (this.low == null) {
+            return false;
+        }
+        int comparison = Attribute.compareTo(key, this.low);
+        return comparison < 0 || (comparison == 0 && !this.lowInclusive);
+    }
+
+    /**
+     * Check whether a key comes after the range
+     * @param key primary key value
+     * @return whether the key is above the high end
+     */
+    public boolean isAbove(Object key) {
+        if (this.high == null) {
+            return false;
+        }
+        int comparison = Attribute.compareTo(key, this.high);
+        return comparison > 0 || (comparison == 0 && !this.highInclusive);
+    }
+
+    public boolean contains(Object key) {
+        return !isBelow(key) && !isAbove(key);
+    }
+
+    /**
+     * Range of the keys in both ranges
+     * @param other the other range
+     * @return the intersection
+     */
+    public KeyRange intersect(KeyRange other) {
+        boolean otherLow = this.low == null
+                || (other.low != null && compareLows(other.low, other.lowInclusive, this.low, this.lowInclusive) > 0);
+        boolean otherHigh = this.high == null
+                || (other.high != null && compareHighs(other.high, other.highInclusive, this.high, this.highInclusive) < 0);
+        return new KeyRange(otherLow ? other.low : this.low, otherLow ? other.lowInclusive : this.lowInclusive,
+                otherHigh ? other.high : this.high, otherHigh ? other.highInclusive : this.highInclusive);
+    }
+
+    /**
+     * Smallest range holding the keys of both ranges
+     * @param other the other range
+     * @return the span of both
+     */
+    public KeyRange span(KeyRange other) {
+        if (this.isEmpty()) {
+            return other;
+        } else if (other.isEmpty()) {
+            return this;
+        }
+        Object newLow = null;
+        boolean newLowInclusive = false;
+        if (this.low != null && other.low != null) {
+            boolean otherLow = compareLows(other.low, other.lowInclusive, this.low, this.lowInclusive) < 0;
+            newLow = otherLow ? other.low : this.low;
+            newLowInclusive = otherLow ? other.lowInclusive : this.lowInclusive;
+        }
+        Object newHigh = null;
+        boolean newHighInclusive = false;
+        if (this.high != null && other.high != null) {
+            boolean otherHigh = compareHighs(other.high, other.highInclusive, this.high, this.highInclusive) > 0;
+            newHigh = otherHigh ? other.high : this.high;
+            newHighInclusive = otherHigh ? other.highInclusive : this.highInclusive;
+        }
+        return new KeyRange(newLow, newLowInclusive, newHigh, newHighInclusive);
+    }
+
+    /**
+     * Keys in either of two sets of ranges
+     * @param ranges1 sorted ranges that do not overlap
+     * @param ranges2 sorted ranges that do not overlap
+     * @return sorted ranges that do not overlap
+     */
+    public static ArrayList<KeyRange> union(ArrayList<KeyRange> ranges1, ArrayList<KeyRange> ranges2) {
+        ArrayList<KeyRange> ranges = new ArrayList<>(ranges1);
+        ranges.addAll(ranges2);
+        return normalize(ranges);
+    }
+
+    /**
+     * Keys in both of two sets of ranges
+     * @param ranges1 sorted ranges that do not overlap
+     * @param ranges2 sorted ranges that do not overlap
+     * @return sorted ranges that do not overlap
+     */
+    public static ArrayList<KeyRange> intersection(ArrayList<KeyRange> ranges1, ArrayList<KeyRange> ranges2) {
+        ArrayList<KeyRange> ranges = new ArrayList<>();
+        for (KeyRange range1 : ranges1) {
+            for (KeyRange range2 : ranges2) {
+                ranges.add(range1.intersect(range2));
+            }
+        }
+        return normalize(ranges);
+    }
+
+    /**
+     * Sort ranges by their low ends, dropping empty ones and merging the ones that overlap or touch
+     * @param ranges ranges in any order
+     * @return sorted ranges that do not overlap
+     */
+    public static ArrayList<KeyRange> normalize(ArrayList<KeyRange> ranges) {
+        ArrayList<KeyRange> sorted = new ArrayList<>();
+        for (KeyRange range : ranges) {
+            if (!range.isEmpty()) {
+                sorted.add(range);
+            }
+        }
+        sorted.sort((a, b) -> {
+            if (a.low == null || b.low == null) {
+                return a.low == null ? (b.low == null ? 0 : -1) : 1;
+            }
+            return compareLows(a.low, a.lowInclusive, b.low, b.lowInclusive);
+        });
+        ArrayList<KeyRange> merged = new ArrayList<>();
+        for (KeyRange range : sorted) {
+            KeyRange last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.reaches(range)) {
+                merged.set(merged.size() - 1, last.span(range));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Check whether a range starting at or after this one's low end overlaps or touches it
+     */
+    private boolean reaches(KeyRange next) {
+        if (this.high == null || next.low == null) {
+            return true;
+        }
+        int comparison = Attribute.compareTo(next.low, this.high);
+        return comparison < 0 || (comparison == 0 && (next.lowInclusive || this.highInclusive));
+    }
+
+    /**
+     * Compare two low ends, the one that leaves out more keys is larger
+     */
+    private static int compareLows(Object a, boolean aInclusive, Object b, boolean bInclusive) {
+        int comparison = Attribute.compareTo(a, b);
+        if (comparison != 0 || aInclusive == bInclusive) {
+            return comparison;
+        }
+        return aInclusive ? -1 : 1;
+    }
+
+    /**
+     * Compare two high ends, the one that takes in more keys is larger
+     */
+    private static int compareHighs(Object a, boolean aInclusive, Object b, boolean bInclusive) {
+        int comparison = Attribute.compareTo(a, b);
+        if (comparison != 0 || aInclusive == bInclusive) {
+            return comparison;
+        }
+        return aInclusive ? 1 : -1;
+    }
+
+    @Override
+    public String toString() {
+        return (this.low == null ? "(" : (this.lowInclusive ? "[" : "(") + this.low) + ", " +
+                (this.high == null ? ")" : this.high + (this.highInclusive ? "]" : ")"));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * LRU-K Policy
+ * Evicts the page whose K-th most recent access is the oldest. Pages seen fewer than K times are evicted first,
+ * so pages touched once by a scan do not push out pages that are used repeatedly
+ */
+package storageManager;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class LRUKPolicy implements ReplacementPolicy {
+
+    private final int k;
+    // logical clock, so pages accessed back to back never tie
+    private long time;
+    // access times of buffered pages, most recent first
+    private final HashMap<Long, long[]> history;
+    // access times of recently evicted pages, kept so a page that comes back is not treated as new
+    private final LinkedHashMap<Long, long[]> retained;
+    private final TreeSet<Long> victims;
+
+    public LRUKPolicy(int k, int capacity) {
+        this.k = k;
+        this.time = 0;
+        this.history = new HashMap<>(capacity);
+        this.retained = new LinkedHashMap<>(capacity, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        Comparator<Long> byKthAccess = Comparator.comparingLong((Long key) -> history.get(key)[k - 1]);
+        this.victims = new TreeSet<>(byKthAccess
+                .thenComparingLong(key -> history.get(key)[0])
+                .thenComparingLong(key -> key));
+    }
+
+    @Override
+    public void pageAccessed(long key) {
+        long[] accesses = history.get(key);
+        if (accesses == null) {
+            return;
+        }
+        victims.remove(key);
+        record(accesses);
+        victims.add(key);
+    }
+
+    @Override
+    public void pageAdded(long key) {
+        long[] accesses = retained.remove(key);
+        if (accesses == null) {
+            accesses = new long[k];
+        }
+        record(accesses);
+        history.put(key, accesses);
+        victims.add(key);
+    }
+
+    @Override
+    public long evict(long incomingKey) {
+        long victim = victims.pollFirst();
+        retained.put(victim, history.remove(victim));
+        return victim;
+    }
+
+    @Override
+    public void pageRemoved(long key) {
+        if (history.containsKey(key)) {
+            victims.remove(key);
+            history.remove(key);
+        }
+    }
+
+    private void record(long[] accesses) {
+        System.arraycopy(accesses, 0, accesses, 1, k - 1);
+        accesses[0] = ++time;
+    }
+
+    @Override
+    public String getName() {
+        return "LRU-" + k;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * LRU Policy
+ * Evicts the least recently used page
+ */
+package storageManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+public class LRUPolicy implements ReplacementPolicy {
+
+    // insertion ordered, the first key is the least recently used
+    private final LinkedHashSet<Long> recency = new LinkedHashSet<>();
+
+    @Override
+    public void pageAccessed(long key) {
+        recency.remove(key);
+        recency.add(key);
+    }
+
+    @Override
+    public void pageAdded(long key) {
+        recency.add(key);
+    }
+
+    @Override
+    public long evict(long incomingKey) {
+        Iterator<Long> lru = recency.iterator();
+        long victim = lru.next();
+        lru.remove();
+        return victim;
+    }
+
+    @Override
+    public void pageRemoved(long key) {
+        recency.remove(key);
+    }
+
+    @Override
+    public String getName() {
+        return "LRU";
+    }
+}
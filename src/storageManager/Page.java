@@ -9,19 +9,19 @@ import BPlusTree.Index;
 import Exceptions.IllegalOperationException;
 import Exceptions.PageOverfullException;
 import catalog.Catalog;
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 
 public class Page {
+    // source for bulk zeroing free space
+    private static final byte[] ZEROES = new byte[1024];
+
     private final int tableId;
     private int pageId;
     private final ArrayList<Record> records;
     private int freeSpaceAmount;
     private final int pageSize;
-    private long updatedAt; // Used by BufferManager to sort LRU
 
     // indicate to the buffer manager whether this page was modified and needs to be written to memory
     private boolean wasUpdated;
@@ -42,41 +42,51 @@ public class Page {
         return this.tableId;
     }
 
-    public long getUpdatedAt() {
-        return this.updatedAt;
-    }
-    // Updates the pages last update time
-    public void touch() {
-        this.updatedAt = System.currentTimeMillis();
-    }
-    
     public ArrayList<Record> getRecords(){
         return this.records;
     }
 
-    public int getRecordByKey(Attribute primaryKey) {
-        int numRecordsInPage = records.size();
-
-        if (numRecordsInPage == 0) {
-            return -1;
+    /**
+     * Find a record by primary key, trying the slot an index entry remembers first. Slots shift as records
+     * are inserted and deleted, so the slot is only a hint
+     * @param primaryKey primary key of the record
+     * @param slotHint   slot the record was last known to be in
+     * @return slot of the record, -1 if the page does not have it
+     */
+    public int getRecordByKey(Attribute primaryKey, int slotHint) {
+        if (slotHint >= 0 && slotHint < records.size()
+                && Attribute.compareTo(primaryKey.getData(), records.get(slotHint).getPrimaryKeyValue()) == 0) {
+            return slotHint;
         }
-        // Check if the primary key is on this page
-        if (primaryKey.compareTo(records.get(numRecordsInPage - 1).getPrimaryKey()) <= 0) {
-            int left = 0;
-            int right = numRecordsInPage - 1;
-            while (left <= right) {
-                int middle = left + (right - left) / 2;
-                Attribute middleRecordKey = records.get(middle).getPrimaryKey();
-                if (primaryKey.compareTo(middleRecordKey) == 0) {
-                    return middle; // Record found
-                } else if (primaryKey.compareTo(middleRecordKey) < 0) {
-                    right = middle - 1;
-                } else {
-                    left = middle + 1;
-                }
+        return getRecordByKey(primaryKey);
+    }
+
+    public int getRecordByKey(Attribute primaryKey) {
+        int slot = searchKey(primaryKey.getData());
+        return slot >= 0 ? slot : -1;
+    }
+
+    /**
+     * Binary search the records for a primary key
+     * @param key primary key value
+     * @return slot of the record with the key if there is one, otherwise (-(insertion point) - 1) where the
+     *         insertion point is the slot a record with the key would be inserted at
+     */
+    public int searchKey(Object key) {
+        int left = 0;
+        int right = records.size() - 1;
+        while (left <= right) {
+            int middle = left + (right - left) / 2;
+            int comparison = Attribute.compareTo(key, records.get(middle).getPrimaryKeyValue());
+            if (comparison == 0) {
+                return middle; // Record found
+            } else if (comparison < 0) {
+                right = middle - 1;
+            } else {
+                left = middle + 1;
             }
         }
-        return -1;
+        return -(left + 1);
     }
 
     public boolean canInsertRecord(Record record) {
@@ -97,12 +107,10 @@ public class Page {
         ArrayList<Record> newPageRecords = new ArrayList<>(records.subList(middle, records.size()));
         records.subList(middle, records.size()).clear();
         this.update();
-        if (Catalog.getCatalog().getIndexing()) {
-            this.updateIndices(table, 0);
-        }
 
-        // Insert the second half of the records into the new page
-        Page newPage = new Page(this.tableId, this.pageId + 1, this.pageSize, newPageRecords);
+        // Insert the second half of the records into the new page, only their index entries change
+        int newPageId = table.addPage(table.getPagePosition(this.pageId) + 1);
+        Page newPage = new Page(this.tableId, newPageId, this.pageSize, newPageRecords);
         newPage.update();
         if (Catalog.getCatalog().getIndexing()) {
             newPage.updateIndices(table, 0);
@@ -121,16 +129,9 @@ public class Page {
 
     private void update() {
         this.wasUpdated = true;
-        this.touch();
         calculateFreeSpace();
     }
 
-    public void updatePageNumber(int change) {
-        this.pageId += change;
-        this.wasUpdated = true;
-        this.touch();
-    }
-
     public boolean hasBeenUpdated() {
         return this.wasUpdated;
     }
@@ -158,53 +159,58 @@ public class Page {
         }
     }
 
-    public byte[] serializePage() throws IOException, IllegalOperationException {
+    /**
+     * Write this page into a buffer of one page: page id | number of slots | end of free space |
+     * slots (position | length)[] | free space | records
+     * @param buffer buffer holding at least a page, written from offset 0
+     * @throws IllegalOperationException page is empty or its records do not fit the page
+     */
+    public void serializePage(ByteBuffer buffer) throws IllegalOperationException {
         ArrayList<Record> records = getRecords();
         if (records.size() == 0) {
             throw new IllegalOperationException("Tried to insert a page with 0 records.");
         }
         int freeSpace = getFreeSpaceAmount();
+        if (freeSpace < 0) {
+            throw new IllegalOperationException("Tried to write page of size " + (pageSize - freeSpace) + " bytes which is not the defined page size");
+        }
         int numberOfSlots = records.size();
         int headerSize = getHeaderSize();
         int endOfFreeSpace = headerSize + freeSpace;
-        int[] recordPositions = new int[numberOfSlots];
-        int[] recordSizes = new int[numberOfSlots];
-
-        int cumulativeRecordSize = 0;
-        ByteArrayOutputStream baosRecords = new ByteArrayOutputStream();
-        DataOutputStream dosRecords = new DataOutputStream(baosRecords);
-        for (int i = 0; i < records.size(); i++) {
-            var record = records.get(i);
-            int startSize = baosRecords.size();
-            record.serialize(dosRecords);
-            dosRecords.flush();
-            int endSize = baosRecords.size();
-            recordSizes[i] = endSize - startSize;
-            if (recordSizes[i] != record.getSizeFile()) {
-                throw new IllegalOperationException("Tried to insert a record whose serialized size was different than its calculated size");
-            }
-            recordPositions[i] = endOfFreeSpace + cumulativeRecordSize;
-            cumulativeRecordSize += recordSizes[i];
-        }
-        dosRecords.flush();
-        byte[] recordData = baosRecords.toByteArray();
 
-        ByteArrayOutputStream pageBaos = new ByteArrayOutputStream();
-        DataOutputStream pageDos = new DataOutputStream(pageBaos);
+        buffer.putInt(0, getPageId());
+        buffer.putInt(4, numberOfSlots);
+        buffer.putInt(8, endOfFreeSpace);
+        fillZeroes(buffer, headerSize, freeSpace);
 
-        pageDos.writeInt(getPageId());
-        pageDos.writeInt(numberOfSlots);
-        pageDos.writeInt(endOfFreeSpace);
+        int recordPosition = endOfFreeSpace;
         for (int i = 0; i < numberOfSlots; i++) {
-            pageDos.writeInt(recordPositions[i]);
-            pageDos.writeInt(recordSizes[i]);
+            Record record = records.get(i);
+            int recordSize;
+            try {
+                recordSize = record.serialize(buffer, recordPosition);
+            } catch (IndexOutOfBoundsException e) {
+                recordSize = -1;
+            }
+            if (recordSize != record.getSizeFile()) {
+                throw new IllegalOperationException("Tried to insert a record whose serialized size was different than its calculated size");
+            }
+            buffer.putInt(12 + (8 * i), recordPosition);
+            buffer.putInt(16 + (8 * i), recordSize);
+            recordPosition += recordSize;
         }
-        for (int i = 0; i < freeSpace; i++) {
-            pageDos.writeByte(0);
+    }
+
+    /**
+     * Zero a region of a buffer in bulk
+     */
+    public static void fillZeroes(ByteBuffer buffer, int position, int length) {
+        while (length > 0) {
+            int chunk = Math.min(length, ZEROES.length);
+            buffer.put(position, ZEROES, 0, chunk);
+            position += chunk;
+            length -= chunk;
         }
-        pageDos.write(recordData);
-        pageDos.flush();
-        return pageBaos.toByteArray();
     }
 
     public static String ljust(String input, int length) {
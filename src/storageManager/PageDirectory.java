@@ -0,0 +1,380 @@
+/**
+ * Page Directory
+ * Order of a table's pages by key and where each page is in the page file, along with the free space and
+ * key range of every page so records find their page without reading the table. The directory file is marked open
+ * as soon as the directory changes and written in full when the buffer is flushed, so a directory left open by a
+ * crash, written in an older format or missing is rebuilt from the pages themselves
+ */
+package storageManager;
+
+import catalog.AttributeSchema;
+import catalog.AttributeType;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+class PageDirectory {
+    // start of every directory file, files written before the format had a version start with their page slots
+    private static final int MAGIC = 0x50444952;
+    // layout of the rest of the file, a file of another version is rebuilt from the pages
+    static final int FORMAT_VERSION = 4;
+    // whether pages may have been written since the directory file was
+    private static final int WRITTEN = 0;
+    private static final int OPEN = 1;
+    private static final int STATE_OFFSET = 8;
+
+    /**
+     * What the directory knows about a page without reading it
+     */
+    private static class PageEntry {
+        private final int pageId;
+        private int freeSpace;
+        private int numRecords;
+        // primary keys of the first and last records, null while the page is empty
+        private Object minKey;
+        private Object maxKey;
+
+        private PageEntry(int pageId) {
+            this.pageId = pageId;
+        }
+    }
+
+    private final String location;
+    private final AttributeType.TYPE keyType;
+    // pages in order of their keys
+    private final ArrayList<PageEntry> pages;
+    private final HashMap<Integer, PageEntry> pagesById;
+    // number of pages the page file has room for, including removed ones
+    private int pageSlots;
+    // slots of removed pages, reused by new pages before the file grows
+    private final TreeSet<Integer> freeSlots;
+    private boolean changed;
+    // whether the directory file is in the current format and can be marked open in place
+    private boolean persisted;
+    // whether the pages have to be read to rebuild the directory, the file could not be trusted
+    private boolean rebuilding;
+
+    private PageDirectory(String location, AttributeSchema primaryKey) {
+        this.location = location;
+        this.keyType = primaryKey.getAttributeType().type;
+        this.pages = new ArrayList<>();
+        this.pagesById = new HashMap<>();
+        this.freeSlots = new TreeSet<>();
+    }
+
+    /**
+     * Create a directory of a table without pages
+     * @param location   location of the directory file
+     * @param primaryKey primary key of the table
+     * @return the directory
+     */
+    static PageDirectory empty(String location, AttributeSchema primaryKey) {
+        return new PageDirectory(location, primaryKey);
+    }
+
+    /**
+     * Read a directory from its file. When the file is missing, in another format or was left open, the directory
+     * only knows how many page slots the page file has and is rebuilt by adding every one of its pages
+     * @param location   location of the directory file
+     * @param pageFile   the table's page file
+     * @param pageSize   size of a page
+     * @param primaryKey primary key of the table
+     * @return the directory
+     * @throws IOException the directory file could not be read
+     */
+    static PageDirectory read(String location, File pageFile, int pageSize, AttributeSchema primaryKey) throws IOException {
+        PageDirectory directory = new PageDirectory(location, primaryKey);
+        File directoryFile = new File(location);
+        ByteBuffer buffer = null;
+        if (directoryFile.exists()) {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(directoryFile.toPath()));
+            if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getInt(STATE_OFFSET) != WRITTEN) {
+                buffer = null;
+            }
+        }
+        if (buffer != null) {
+            // magic | format version | state | page slots | number of pages |
+            // (page id | free space | number of records | min key | max key)[] | number of free slots | free slots[],
+            // keys are their size followed by their bytes
+            buffer.position(12);
+            directory.pageSlots = buffer.getInt();
+            int numPages = buffer.getInt();
+            for (int i = 0; i < numPages; i++) {
+                PageEntry entry = directory.addEntry(i, buffer.getInt());
+                entry.freeSpace = buffer.getInt();
+                entry.numRecords = buffer.getInt();
+                entry.minKey = directory.readKey(buffer);
+                entry.maxKey = directory.readKey(buffer);
+            }
+            int numFreeSlots = buffer.getInt();
+            for (int i = 0; i < numFreeSlots; i++) {
+                directory.freeSlots.add(buffer.getInt());
+            }
+            directory.persisted = true;
+        } else if (pageFile.exists()) {
+            // a page cut short by a crash is not a page
+            directory.pageSlots = (int) (pageFile.length() / pageSize);
+            directory.rebuilding = directory.pageSlots > 0;
+            directory.changed = true;
+        }
+        return directory;
+    }
+
+    /**
+     * Write the directory to its file if it changed. It is written beside the file and moved over it, so a crash
+     * leaves either the old file, marked open, or the new one
+     * @throws IOException the file could not be written
+     */
+    void write() throws IOException {
+        if (!this.changed) {
+            return;
+        }
+        byte[][] minKeys = new byte[this.pages.size()][];
+        byte[][] maxKeys = new byte[this.pages.size()][];
+        int size = 24 + (4 * this.freeSlots.size());
+        for (int i = 0; i < this.pages.size(); i++) {
+            minKeys[i] = keyBytes(this.pages.get(i).minKey);
+            maxKeys[i] = keyBytes(this.pages.get(i).maxKey);
+            size += 20 + minKeys[i].length + maxKeys[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(WRITTEN);
+        buffer.putInt(this.pageSlots);
+        buffer.putInt(this.pages.size());
+        for (int i = 0; i < this.pages.size(); i++) {
+            PageEntry entry = this.pages.get(i);
+            buffer.putInt(entry.pageId);
+            buffer.putInt(entry.freeSpace);
+            buffer.putInt(entry.numRecords);
+            buffer.putInt(entry.minKey == null ? -1 : minKeys[i].length).put(minKeys[i]);
+            buffer.putInt(entry.maxKey == null ? -1 : maxKeys[i].length).put(maxKeys[i]);
+        }
+        buffer.putInt(this.freeSlots.size());
+        for (int freeSlot : this.freeSlots) {
+            buffer.putInt(freeSlot);
+        }
+        Path written = Path.of(this.location + ".new");
+        Files.write(written, buffer.array());
+        Files.move(written, Path.of(this.location), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.changed = false;
+        this.persisted = true;
+    }
+
+    /**
+     * Note that the directory changed. The first change after the file was written marks the file open, pages
+     * written from then on may not match it until it is written again
+     */
+    private void setChanged() {
+        if (this.changed) {
+            return;
+        }
+        this.changed = true;
+        if (!this.persisted) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(this.location, "rw")) {
+            file.seek(STATE_OFFSET);
+            file.writeInt(OPEN);
+        } catch (IOException e) {
+            // the file can not be trusted, without it the directory is rebuilt
+            System.err.println(e.getMessage());
+            new File(this.location).delete();
+        }
+        this.persisted = false;
+    }
+
+    int size() {
+        return this.pages.size();
+    }
+
+    int getPageSlots() {
+        return this.pageSlots;
+    }
+
+    boolean isRebuilding() {
+        return this.rebuilding;
+    }
+
+    /**
+     * Get the id of the page at some position
+     * @param position position of the page in key order
+     * @return page id, -1 if there is no page at that position
+     */
+    int getPageId(int position) {
+        if (position < 0 || position >= this.pages.size()) {
+            return -1;
+        }
+        return this.pages.get(position).pageId;
+    }
+
+    /**
+     * Count the records of the table
+     * @return number of records on all pages
+     */
+    long getNumRecords() {
+        long numRecords = 0;
+        for (PageEntry entry : this.pages) {
+            numRecords += entry.numRecords;
+        }
+        return numRecords;
+    }
+
+    /**
+     * Get the largest primary key in the table
+     * @return the key, null if the table has no records
+     */
+    Object getMaxKey() {
+        return this.pages.isEmpty() ? null : this.pages.get(this.pages.size() - 1).maxKey;
+    }
+
+    /**
+     * Get the position of a page
+     * @param pageId id of the page
+     * @return position of the page in key order, -1 if there is no such page
+     */
+    int indexOf(int pageId) {
+        PageEntry entry = this.pagesById.get(pageId);
+        return entry == null ? -1 : this.pages.indexOf(entry);
+    }
+
+    /**
+     * Add an empty page, in the slot of a removed page if there is one
+     * @param position position of the new page in key order
+     * @return id of the new page
+     */
+    int add(int position) {
+        Integer freeSlot = this.freeSlots.pollFirst();
+        int pageId = freeSlot != null ? freeSlot : this.pageSlots++;
+        addEntry(position, pageId);
+        setChanged();
+        return pageId;
+    }
+
+    /**
+     * Remove a page, freeing its slot. Free slots at the end of the page file are given up
+     * @param pageId id of the page
+     * @return whether the directory had the page
+     */
+    boolean remove(int pageId) {
+        PageEntry entry = this.pagesById.remove(pageId);
+        if (entry == null) {
+            return false;
+        }
+        this.pages.remove(entry);
+        this.freeSlots.add(pageId);
+        while (this.pageSlots > 0 && this.freeSlots.remove(this.pageSlots - 1)) {
+            this.pageSlots--;
+        }
+        setChanged();
+        return true;
+    }
+
+    /**
+     * Record the free space and key range of a page after it changed
+     * @param page the page
+     */
+    void update(Page page) {
+        PageEntry entry = this.pagesById.get(page.getPageId());
+        if (entry == null) {
+            return;
+        }
+        ArrayList<Record> records = page.getRecords();
+        entry.freeSpace = page.getFreeSpaceAmount();
+        entry.numRecords = records.size();
+        entry.minKey = records.isEmpty() ? null : records.get(0).getPrimaryKeyValue();
+        entry.maxKey = records.isEmpty() ? null : records.get(records.size() - 1).getPrimaryKeyValue();
+        setChanged();
+    }
+
+    /**
+     * Add a page read from the page file while rebuilding. A page without records is a free slot, removed pages are
+     * written empty and slots never written read as zeroes
+     * @param pageId id of the page, its slot in the page file
+     * @param page   the page, null if it could not be read
+     */
+    void rebuild(int pageId, Page page) {
+        if (page == null || page.getRecords().isEmpty()) {
+            this.freeSlots.add(pageId);
+            return;
+        }
+        addEntry(this.pages.size(), pageId);
+        update(page);
+    }
+
+    /**
+     * Put the rebuilt pages in order of their keys, each page's keys are in order and no two pages share a key
+     */
+    void finishRebuild() {
+        this.pages.sort((entry1, entry2) -> Attribute.compareTo(entry1.minKey, entry2.minKey));
+        this.rebuilding = false;
+    }
+
+    /**
+     * Find the page a key belongs on by binary searching the key ranges of the pages. A key between two pages
+     * could go on either, it goes on the second when only that one has room
+     * @param key         primary key
+     * @param spaceNeeded bytes the record takes in a page, with its slot
+     * @return position of the page
+     */
+    int findPosition(Object key, int spaceNeeded) {
+        int position = 0;
+        int left = 0;
+        int right = this.pages.size() - 1;
+        while (left <= right) {
+            int middle = left + (right - left) / 2;
+            Object minKey = this.pages.get(middle).minKey;
+            if (minKey == null || Attribute.compareTo(minKey, key) <= 0) {
+                position = middle;
+                left = middle + 1;
+            } else {
+                right = middle - 1;
+            }
+        }
+        if (position + 1 < this.pages.size()) {
+            PageEntry entry = this.pages.get(position);
+            PageEntry next = this.pages.get(position + 1);
+            if (entry.maxKey != null && Attribute.compareTo(key, entry.maxKey) > 0
+                    && entry.freeSpace < spaceNeeded && next.freeSpace >= spaceNeeded) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private PageEntry addEntry(int position, int pageId) {
+        PageEntry entry = new PageEntry(pageId);
+        this.pages.add(position, entry);
+        this.pagesById.put(pageId, entry);
+        return entry;
+    }
+
+    private byte[] keyBytes(Object key) {
+        if (key == null) {
+            return new byte[0];
+        }
+        int size = Attribute.serializedSize(this.keyType, key, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        Attribute.serialize(buffer, 0, this.keyType, key, 0);
+        return buffer.array();
+    }
+
+    private Object readKey(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size == -1) {
+            return null;
+        }
+        Object key = Table.readValue(buffer, buffer.position(), size, this.keyType);
+        buffer.position(buffer.position() + size);
+        return key;
+    }
+}
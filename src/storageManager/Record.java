@@ -7,26 +7,59 @@ package storageManager;
 
 import catalog.AttributeSchema;
 import catalog.AttributeType;
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 
 /**
  * Record Class, represents a single tuple/entry
  */
 public class Record implements Comparable<Record>, Cloneable {
-     private HashMap<String, Attribute> attributes;
+     // marks values of a record read from a page that have not been decoded yet
+     private static final Object NOT_DECODED = new Object();
+
+     // attributes of the record, shared by every record with the same attributes
+     private RecordLayout layout;
+     // value of each attribute, by position in the layout
+     private Object[] values;
+
+     // bytes of the page the record was read from. While set, values are decoded on first access
+     private ByteBuffer page;
+     private int position;
+     private int length;
+     // serialized size, -1 until it is needed
+     private int sizeFile;
 
 
      public Record(ArrayList<Attribute> attributes) {
-        this.attributes = new HashMap<>();
+        // an attribute replaces any earlier one of the same name
+        LinkedHashMap<String, Attribute> attributesByName = new LinkedHashMap<>();
         for (Attribute attribute: attributes) {
-            this.attributes.put(attribute.getAttributeName(), attribute);
+            attributesByName.put(attribute.getAttributeName(), attribute);
         }
+        this.layout = RecordLayout.of(new ArrayList<>(attributesByName.values()));
+        this.values = new Object[this.layout.size()];
+        for (Attribute attribute : attributesByName.values()) {
+            this.values[this.layout.indexOf(attribute.getAttributeName())] = attribute.getData();
+        }
+        this.sizeFile = -1;
+     }
+
+     /**
+      * Create a record that decodes its values from a page on demand
+      * @param layout   attributes the record was serialized with, in the same order
+      * @param page     bytes of the page, never modified after the record is created
+      * @param position offset of the record in the page
+      * @param length   serialized size of the record
+      */
+     Record(RecordLayout layout, ByteBuffer page, int position, int length) {
+        this.layout = layout;
+        this.page = page;
+        this.position = position;
+        this.length = length;
+        this.sizeFile = -1;
      }
 
      /**
@@ -35,24 +68,65 @@ public class Record implements Comparable<Record>, Cloneable {
       * @return the attribute object
       */
      public Attribute getAttribute(String attributeName){
-        return attributes.get(attributeName);
+        int index = layout.indexOf(attributeName);
+        if (index == -1) {
+            return null;
+        }
+        return new Attribute(layout.get(index), getValue(index));
+     }
+
+     /**
+      * gets a specific attribute object based on its id, whatever name the record gives it
+      * @param attributeId id of the attribute in the table schema
+      * @return the attribute object, null if the record does not have it
+      */
+     public Attribute getAttribute(int attributeId){
+        for (int i = 0; i < layout.size(); i++) {
+            if (layout.get(i).getAttributeId() == attributeId) {
+                return new Attribute(layout.get(i), getValue(i));
+            }
+        }
+        return null;
      }
 
     public Attribute setAttribute(String attributeName, Attribute attribute){
-        return attributes.put(attributeName, attribute);
+        Attribute previous = getAttribute(attributeName);
+        changeLayout(layout.with(attributeName, attribute));
+        values[layout.indexOf(attributeName)] = attribute.getData();
+        return previous;
     }
 
     public Attribute removeAttribute(String attributeName){
-        return attributes.remove(attributeName);
+        Attribute previous = getAttribute(attributeName);
+        if (previous != null) {
+            changeLayout(layout.without(attributeName));
+        }
+        return previous;
     }
 
     public Attribute getPrimaryKey(){
-         for (Attribute attribute: attributes.values()) {
-             if (attribute.isKey()) {
-                 return attribute;
-             }
-         }
-        return null;
+        int keyIndex = layout.getKeyIndex();
+        if (keyIndex == -1) {
+            return null;
+        }
+        return new Attribute(layout.get(keyIndex), getValue(keyIndex));
+    }
+
+    /**
+     * Get the value of the primary key without creating an attribute for it
+     * @return value of the primary key, null if the record has no key
+     */
+    public Object getPrimaryKeyValue() {
+        int keyIndex = layout.getKeyIndex();
+        return keyIndex == -1 ? null : getValue(keyIndex);
+    }
+
+    /**
+     * Names of the attributes in this record, without decoding them
+     * @return attribute names
+     */
+    public Collection<String> getAttributeNames() {
+        return layout.getNames();
     }
 
      /**
@@ -61,59 +135,52 @@ public class Record implements Comparable<Record>, Cloneable {
       */
      public int getSize(){
         int totalSize = 0;
-        for(Attribute attribute : attributes.values()){
-            totalSize += attribute.getSize();
+        for (int i = 0; i < layout.size(); i++) {
+            totalSize += layout.get(i).getSize();
         }
         return totalSize;
      }
 
     public int getSizeFile(){
-        int totalSize = 4; // num attributes
-        int pointerSize = 12; // attr pos, size, id
-        for(Attribute attribute : attributes.values()){
-            if (attribute.getData() == null) {
-                totalSize += pointerSize + 1; // null bitmap plus pointer
-            } else if (attribute.getAttributeType().type == AttributeType.TYPE.VARCHAR) {
-                totalSize += pointerSize + attribute.getSize();
-            } else {
-                totalSize += pointerSize + attribute.getSize();
+        if (sizeFile == -1) {
+            int totalSize = 4; // num attributes
+            int pointerSize = 12; // attr pos, size, id
+            for (int i = 0; i < layout.size(); i++) {
+                totalSize += pointerSize + getValueSize(i);
             }
+            sizeFile = totalSize; // doesnt include header side
         }
-        return totalSize; // doesnt include header side
+        return sizeFile;
     }
 
-    public void serialize(DataOutputStream recordDos) throws IOException {
-        ArrayList<Attribute> attributes = getAttributes();
-        attributes.sort(Comparator.comparing(AttributeSchema::getAttributeName));
-        int numAttributes = attributes.size();
-
-        int[] attributePositions = new int[numAttributes];
-        int[] attributeSizes = new int[numAttributes];
-        int[] attributeIds = new int[numAttributes];
-        int recordHeaderSize = 4 + (12 * numAttributes); // num attr then Attr location | size | id for each attr
-        int cumulativeAttributeSize = 0;
-        ByteArrayOutputStream attributeBaos = new ByteArrayOutputStream();
-        DataOutputStream attributeDos = new DataOutputStream(attributeBaos);
-        for (int i = 0; i < numAttributes; i++) {
-            int startSize = attributeBaos.size();
-            attributes.get(i).serialize(attributeDos);
-            attributeDos.flush();
-            int endSize = attributeBaos.size();
-            attributeSizes[i] = endSize - startSize;
-            attributePositions[i] = recordHeaderSize + cumulativeAttributeSize;
-            attributeIds[i] = attributes.get(i).getAttributeId();
-            cumulativeAttributeSize += attributeSizes[i];
+    /**
+     * Write this record into a buffer: number of attributes | (position | size | id)[] | attribute data
+     * @param buffer   buffer to write into
+     * @param position offset in the buffer the record starts at
+     * @return number of bytes written
+     */
+    public int serialize(ByteBuffer buffer, int position) {
+        if (page != null && length == getSizeFile()) {
+            // nothing can have changed, copy the bytes it was read from
+            buffer.put(position, page, this.position, length);
+            return length;
         }
+        int numAttributes = layout.size();
 
-        byte[] attributeData = attributeBaos.toByteArray();
-
-        recordDos.writeInt(numAttributes);
+        int recordHeaderSize = 4 + (12 * numAttributes); // num attr then Attr location | size | id for each attr
+        int attributePosition = recordHeaderSize;
+        buffer.putInt(position, numAttributes);
         for (int i = 0; i < numAttributes; i++) {
-            recordDos.writeInt(attributePositions[i]);
-            recordDos.writeInt(attributeSizes[i]);
-            recordDos.writeInt(attributeIds[i]);
+            AttributeSchema attribute = layout.get(i);
+            int attributeSize = Attribute.serialize(buffer, position + attributePosition, attribute.getAttributeType().type,
+                    getValue(i), getStringLength(i));
+            int slot = position + 4 + (12 * i);
+            buffer.putInt(slot, attributePosition);
+            buffer.putInt(slot + 4, attributeSize);
+            buffer.putInt(slot + 8, attribute.getAttributeId());
+            attributePosition += attributeSize;
         }
-        recordDos.write(attributeData);
+        return attributePosition;
     }
 
      /**
@@ -121,21 +188,122 @@ public class Record implements Comparable<Record>, Cloneable {
       * @return a list of all attribute schemas in the record
       */
      public ArrayList<Attribute> getAttributes(){
-         return new ArrayList<>(attributes.values());
+         ArrayList<Attribute> attributes = new ArrayList<>(layout.size());
+         for (int i = 0; i < layout.size(); i++) {
+             int index = layout.getListed(i);
+             attributes.add(new Attribute(layout.get(index), getValue(index)));
+         }
+         return attributes;
      }
 
+    /**
+     * Get the value of an attribute, decoding it from the page if needed
+     * @param index position of the attribute in the layout
+     * @return the value
+     */
+    private Object getValue(int index) {
+        if (values == null) {
+            values = new Object[layout.size()];
+            Arrays.fill(values, NOT_DECODED);
+        }
+        Object value = values[index];
+        if (value == NOT_DECODED) {
+            // attribute pointer: position in record | size | attribute id
+            int pointer = position + 4 + (12 * index);
+            value = Table.readValue(page, position + page.getInt(pointer), page.getInt(pointer + 4),
+                    layout.get(index).getAttributeType().type);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Get the number of bytes an attribute is serialized to, reading it from the page when not yet decoded
+     * @param index position of the attribute in the layout
+     * @return serialized size of the attribute
+     */
+    private int getValueSize(int index) {
+        AttributeType.TYPE type = layout.get(index).getAttributeType().type;
+        if (page != null && (values == null || values[index] == NOT_DECODED)) {
+            int pointer = position + 4 + (12 * index);
+            int valuePosition = position + page.getInt(pointer);
+            int valueSize = page.getInt(pointer + 4);
+            if (valueSize == 1 && page.get(valuePosition) == 0) {
+                return 1;
+            }
+            switch (type) {
+                case INT:
+                    return Integer.BYTES;
+                case DOUBLE:
+                    return Double.BYTES;
+                case BOOLEAN:
+                    return 1;
+                default:
+                    int trimmedSize = trimmedAsciiSize(valuePosition, valueSize);
+                    if (trimmedSize != -1) {
+                        return Math.max(trimmedSize, getStringLength(index));
+                    }
+            }
+        }
+        return Attribute.serializedSize(type, getValue(index), getStringLength(index));
+    }
+
+    /**
+     * Get the size of a string in the page once decoded, as decoding trims it
+     * @return size of the trimmed string, -1 if it is not ASCII
+     */
+    private int trimmedAsciiSize(int valuePosition, int valueSize) {
+        int start = valuePosition;
+        int end = valuePosition + valueSize;
+        for (int i = start; i < end; i++) {
+            if (page.get(i) < 0) {
+                return -1;
+            }
+        }
+        while (start < end && page.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && page.get(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
+    private int getStringLength(int index) {
+        return layout.get(index).getSize();
+    }
+
+    /**
+     * Move the values to a new layout, keeping those of attributes in both. The record no longer refers to its page
+     * @param newLayout layout to use
+     */
+    private void changeLayout(RecordLayout newLayout) {
+        Object[] newValues = new Object[newLayout.size()];
+        for (int i = 0; i < newLayout.size(); i++) {
+            int index = layout.indexOf(newLayout.getNames().get(i));
+            if (index != -1) {
+                newValues[i] = getValue(index);
+            }
+        }
+        layout = newLayout;
+        values = newValues;
+        page = null;
+        sizeFile = -1;
+    }
+
 
       // This does not check for whether the records belong to the same table or not
     @Override
     public int compareTo(Record o) {
-         return this.getPrimaryKey().compareTo(o.getPrimaryKey());
+         return Attribute.compareTo(this.getPrimaryKeyValue(), o.getPrimaryKeyValue());
     }
 
     @Override
     public String toString() {
         StringBuilder finalStr = new StringBuilder("Record=");
-        for (Attribute atr: attributes.values()) {
-            finalStr.append("\n\t").append(atr.getAttributeName()).append(": ").append(atr.getData());
+        for (int i = 0; i < layout.size(); i++) {
+            int index = layout.getListed(i);
+            finalStr.append("\n\t").append(layout.getNames().get(index)).append(": ").append(getValue(index));
         }
         return finalStr.toString();
     }
@@ -144,9 +312,9 @@ public class Record implements Comparable<Record>, Cloneable {
     public Record clone() {
         try {
             Record cloned = (Record) super.clone();
-            cloned.attributes = new HashMap<>(this.attributes.size());
-            for (Map.Entry<String, Attribute> entry : this.attributes.entrySet()) {
-                cloned.attributes.put(entry.getKey(), (Attribute) entry.getValue().clone());
+            // values are immutable, the page is never written to
+            if (this.values != null) {
+                cloned.values = this.values.clone();
             }
             return cloned;
         } catch (CloneNotSupportedException e) {
@@ -0,0 +1,214 @@
+/**
+ * Record Layout
+ * The attributes of a record in the order records store them. Layouts are shared: every record with the same
+ * attributes refers to the same layout and only holds its values
+ */
+package storageManager;
+
+import catalog.AttributeSchema;
+import catalog.AttributeType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RecordLayout {
+
+    // recently used layouts by signature. Varchar types carry the length of their value, so the number of
+    // distinct layouts is bounded, a dropped layout stays valid for the records using it
+    private static final int MAX_LAYOUTS = 1024;
+    private static final LinkedHashMap<String, RecordLayout> layouts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RecordLayout> eldest) {
+            return size() > MAX_LAYOUTS;
+        }
+    };
+
+    // sorted by name, the order attributes are serialized in
+    private final AttributeSchema[] attributes;
+    private final List<String> names;
+    private final HashMap<String, Integer> positions;
+    // order attributes are listed in, the iteration order of records that kept their attributes in a HashMap
+    private final int[] listingOrder;
+    // position of the primary key, -1 when there is none
+    private final int keyIndex;
+    // layouts derived by adding or removing one attribute
+    private final HashMap<String, RecordLayout> withAttribute;
+    private final HashMap<String, RecordLayout> withoutAttribute;
+
+    private RecordLayout(ArrayList<AttributeSchema> attributeSchemas) {
+        this.attributes = attributeSchemas.toArray(new AttributeSchema[0]);
+        ArrayList<String> names = new ArrayList<>(this.attributes.length);
+        this.positions = new HashMap<>();
+        for (int i = 0; i < this.attributes.length; i++) {
+            names.add(this.attributes[i].getAttributeName());
+            this.positions.put(this.attributes[i].getAttributeName(), i);
+        }
+        this.names = Collections.unmodifiableList(names);
+        this.listingOrder = new int[this.attributes.length];
+        int listed = 0;
+        for (int position : this.positions.values()) {
+            this.listingOrder[listed++] = position;
+        }
+        // a record combining tables has a key from each, the first one listed is its primary key
+        int keyIndex = -1;
+        for (int i = 0; i < this.listingOrder.length && keyIndex == -1; i++) {
+            if (this.attributes[this.listingOrder[i]].isKey()) {
+                keyIndex = this.listingOrder[i];
+            }
+        }
+        this.keyIndex = keyIndex;
+        this.withAttribute = new HashMap<>();
+        this.withoutAttribute = new HashMap<>();
+    }
+
+    /**
+     * Get the layout of records holding a set of attributes. Attributes are copied, so later changes to the
+     * given schemas do not affect the layout
+     * @param attributeSchemas attributes in any order, names must be unique
+     * @return the shared layout
+     */
+    public static RecordLayout of(List<? extends AttributeSchema> attributeSchemas) {
+        ArrayList<AttributeSchema> sorted = new ArrayList<>(attributeSchemas.size());
+        for (AttributeSchema attributeSchema : attributeSchemas) {
+            sorted.add(copy(attributeSchema, attributeSchema.getAttributeName()));
+        }
+        sorted.sort(Comparator.comparing(AttributeSchema::getAttributeName));
+        StringBuilder signature = new StringBuilder();
+        for (AttributeSchema attributeSchema : sorted) {
+            signature.append(signature(attributeSchema)).append(';');
+        }
+        return layouts.computeIfAbsent(signature.toString(), key -> new RecordLayout(sorted));
+    }
+
+    public int size() {
+        return this.attributes.length;
+    }
+
+    public AttributeSchema get(int index) {
+        return this.attributes[index];
+    }
+
+    /**
+     * Find the position of an attribute in serialized records
+     * @param attributeName name of the attribute
+     * @return position of the attribute, -1 if the layout does not have it
+     */
+    public int indexOf(String attributeName) {
+        Integer position = this.positions.get(attributeName);
+        return position == null ? -1 : position;
+    }
+
+    public List<String> getNames() {
+        return this.names;
+    }
+
+    /**
+     * Get the position of the primary key
+     * @return position of the primary key, -1 if the layout has no key
+     */
+    public int getKeyIndex() {
+        return this.keyIndex;
+    }
+
+    /**
+     * Get the position of the attribute listed at some point in the record
+     * @param listed index in the listing order
+     * @return position of the attribute in the layout
+     */
+    public int getListed(int listed) {
+        return this.listingOrder[listed];
+    }
+
+    /**
+     * Check whether this layout holds exactly a set of attributes
+     * @param attributeSchemas attributes in any order
+     * @return true if records of the attributes use this layout
+     */
+    public boolean describes(List<? extends AttributeSchema> attributeSchemas) {
+        if (attributeSchemas.size() != this.attributes.length) {
+            return false;
+        }
+        for (AttributeSchema attributeSchema : attributeSchemas) {
+            int position = indexOf(attributeSchema.getAttributeName());
+            if (position == -1 || !sameAttribute(this.attributes[position], attributeSchema)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the layout with one attribute added, replacing any attribute of the same name
+     * @param attributeName name the attribute is stored under
+     * @param attributeSchema the attribute
+     * @return the shared layout
+     */
+    public RecordLayout with(String attributeName, AttributeSchema attributeSchema) {
+        int position = indexOf(attributeName);
+        if (position != -1 && sameAttribute(this.attributes[position], attributeSchema)
+                && attributeName.equals(attributeSchema.getAttributeName())) {
+            return this;
+        }
+        String key = attributeName + "=" + signature(attributeSchema);
+        RecordLayout layout = this.withAttribute.get(key);
+        if (layout == null) {
+            ArrayList<AttributeSchema> attributeSchemas = new ArrayList<>(this.attributes.length + 1);
+            for (AttributeSchema existing : this.attributes) {
+                if (!existing.getAttributeName().equals(attributeName)) {
+                    attributeSchemas.add(existing);
+                }
+            }
+            attributeSchemas.add(copy(attributeSchema, attributeName));
+            layout = of(attributeSchemas);
+            this.withAttribute.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Get the layout with one attribute removed
+     * @param attributeName name of the attribute
+     * @return the shared layout
+     */
+    public RecordLayout without(String attributeName) {
+        if (indexOf(attributeName) == -1) {
+            return this;
+        }
+        RecordLayout layout = this.withoutAttribute.get(attributeName);
+        if (layout == null) {
+            ArrayList<AttributeSchema> attributeSchemas = new ArrayList<>(this.attributes.length - 1);
+            for (AttributeSchema existing : this.attributes) {
+                if (!existing.getAttributeName().equals(attributeName)) {
+                    attributeSchemas.add(existing);
+                }
+            }
+            layout = of(attributeSchemas);
+            this.withoutAttribute.put(attributeName, layout);
+        }
+        return layout;
+    }
+
+    private static AttributeSchema copy(AttributeSchema attributeSchema, String attributeName) {
+        AttributeType type = attributeSchema.getAttributeType();
+        return new AttributeSchema(attributeName, new AttributeType(type.type, type.length), attributeSchema.getAttributeId(),
+                attributeSchema.isKey(), attributeSchema.isUnique(), attributeSchema.isNull());
+    }
+
+    private static boolean sameAttribute(AttributeSchema first, AttributeSchema second) {
+        return first.getAttributeName().equals(second.getAttributeName())
+                && first.getAttributeType().type == second.getAttributeType().type
+                && first.getAttributeType().length == second.getAttributeType().length
+                && first.getAttributeId() == second.getAttributeId()
+                && first.isKey() == second.isKey() && first.isUnique() == second.isUnique() && first.isNull() == second.isNull();
+    }
+
+    private static String signature(AttributeSchema attributeSchema) {
+        AttributeType type = attributeSchema.getAttributeType();
+        return attributeSchema.getAttributeName() + ":" + type.type + "(" + type.length + "):" + attributeSchema.getAttributeId()
+                + ":" + attributeSchema.isKey() + attributeSchema.isUnique() + attributeSchema.isNull();
+    }
+}
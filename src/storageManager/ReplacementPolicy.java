@@ -0,0 +1,62 @@
+/**
+ * Replacement Policy
+ * Decides which buffered page the buffer manager evicts when the buffer is full
+ */
+package storageManager;
+
+import Exceptions.IllegalOperationException;
+
+public interface ReplacementPolicy {
+
+    /**
+     * Create a replacement policy by name
+     * @param name     lru, clock, lru-k, 2q or arc
+     * @param capacity number of frames in the buffer
+     * @return the replacement policy
+     * @throws IllegalOperationException no policy of that name
+     */
+    public static ReplacementPolicy create(String name, int capacity) throws IllegalOperationException {
+        switch (name.toLowerCase()) {
+            case "lru":
+                return new LRUPolicy();
+            case "clock":
+                return new ClockPolicy(capacity);
+            case "lru-k":
+            case "lru-2":
+                return new LRUKPolicy(2, capacity);
+            case "2q":
+                return new TwoQueuePolicy(capacity);
+            case "arc":
+                return new ARCPolicy(capacity);
+            default:
+                throw new IllegalOperationException("Unknown buffer replacement policy: " + name);
+        }
+    }
+
+    /**
+     * A page was found in the buffer
+     * @param key page table key of the page
+     */
+    public abstract void pageAccessed(long key);
+
+    /**
+     * A page was placed in the buffer
+     * @param key page table key of the page
+     */
+    public abstract void pageAdded(long key);
+
+    /**
+     * Choose a page to evict so the incoming page can be buffered. The victim is no longer tracked as buffered
+     * @param incomingKey page table key of the page about to be added
+     * @return page table key of the page to evict
+     */
+    public abstract long evict(long incomingKey);
+
+    /**
+     * A page left the buffer without being chosen as a victim
+     * @param key page table key of the page
+     */
+    public abstract void pageRemoved(long key);
+
+    public abstract String getName();
+}
@@ -0,0 +1,155 @@
+/**
+ * Run File
+ * Temporary file under the database directory holding a run of records in order, in pages laid out like a table's
+ * pages. A run is written once from start to end and then read back the same way, one page at a time, so writing
+ * or reading it only holds a page. Every record of a run has the same attributes
+ */
+package storageManager;
+
+import Exceptions.IllegalOperationException;
+import Exceptions.PageOverfullException;
+import catalog.Catalog;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+public class RunFile {
+    private final File location;
+    private final int pageSize;
+    private RandomAccessFile file;
+    private RecordLayout layout;
+    private int numPages;
+
+    // page being written
+    private Page page;
+    // records of the page being read
+    private ArrayList<Record> records;
+    private int position;
+    private int pagePosition;
+
+    /**
+     * Create an empty run
+     * @param pageSize size of the run's pages, at least one that holds its largest record
+     */
+    public RunFile(int pageSize) throws IllegalOperationException {
+        this.pageSize = pageSize;
+        try {
+            this.location = File.createTempFile("sort-", ".bin", new File(Catalog.getCatalog().getLocation()));
+            this.file = new RandomAccessFile(this.location, "rw");
+        } catch (IOException e) {
+            throw new IllegalOperationException("Could not create a sort run: " + e.getMessage());
+        }
+        this.page = new Page(-1, 0, pageSize, new ArrayList<>());
+    }
+
+    /**
+     * Size of the pages a run needs for a record, the database's page size or the smallest multiple of it the
+     * record fits in, since a record of several tables can be larger than a page
+     * @param record record to write
+     * @return page size
+     */
+    public static int getPageSize(Record record) {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        // page id | number of slots | end of free space | one slot
+        int needed = 12 + 8 + record.getSizeFile();
+        return Math.max(1, (needed + pageSize - 1) / pageSize) * pageSize;
+    }
+
+    /**
+     * Add a record to the end of the run
+     * @param record record to add
+     * @throws IllegalOperationException the record has other attributes than the run's records or does not fit
+     *                                   its pages
+     */
+    public void add(Record record) throws IllegalOperationException {
+        if (this.layout == null) {
+            this.layout = RecordLayout.of(record.getAttributes());
+        } else if (!this.layout.getNames().equals(record.getAttributeNames())) {
+            throw new IllegalOperationException("Records of a sort run must have the same attributes");
+        }
+        try {
+            if (!this.page.canInsertRecord(record)) {
+                writePage();
+            }
+            this.page.insertRecord(record, this.page.getRecords().size());
+        } catch (PageOverfullException e) {
+            throw new IllegalOperationException("Record does not fit a page of its sort run");
+        }
+    }
+
+    /**
+     * Write the last page, the run is read from its first record after this
+     */
+    public void finish() throws IllegalOperationException {
+        if (!this.page.getRecords().isEmpty()) {
+            writePage();
+        }
+        this.page = null;
+        this.records = new ArrayList<>();
+        this.position = 0;
+        this.pagePosition = 0;
+    }
+
+    private void writePage() throws IllegalOperationException {
+        ByteBuffer buffer = ByteBuffer.allocate(this.pageSize);
+        this.page.serializePage(buffer);
+        try {
+            Table.writeFully(this.file.getChannel(), buffer, (long) this.numPages * this.pageSize);
+        } catch (IOException e) {
+            throw new IllegalOperationException(e.getMessage());
+        }
+        this.numPages++;
+        this.page = new Page(-1, this.numPages, this.pageSize, new ArrayList<>());
+    }
+
+    /**
+     * Read the next record of a finished run
+     * @return the record, null once the run is read
+     */
+    public Record next() throws IllegalOperationException {
+        while (this.position == this.records.size()) {
+            if (this.pagePosition == this.numPages) {
+                return null;
+            }
+            this.records = readPage(this.pagePosition++);
+            this.position = 0;
+        }
+        return this.records.get(this.position++);
+    }
+
+    /**
+     * Read a page of the run, its records decode from the page bytes on demand like a table's
+     */
+    private ArrayList<Record> readPage(int pageNumber) throws IllegalOperationException {
+        ByteBuffer page = ByteBuffer.allocate(this.pageSize);
+        try {
+            Table.readFully(this.file.getChannel(), page, (long) pageNumber * this.pageSize);
+        } catch (EOFException eof) {
+            throw new IllegalOperationException("Sort run page " + pageNumber + " is past the end of its file");
+        } catch (IOException e) {
+            throw new IllegalOperationException(e.getMessage());
+        }
+        int numberOfSlots = page.getInt(4);
+        ArrayList<Record> records = new ArrayList<>(numberOfSlots);
+        for (int i = 0; i < numberOfSlots; i++) {
+            records.add(new Record(this.layout, page, page.getInt(12 + (8 * i)), page.getInt(16 + (8 * i))));
+        }
+        return records;
+    }
+
+    /**
+     * Close and delete the run's file
+     */
+    public void delete() {
+        try {
+            this.file.close();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        this.location.delete();
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * Secondary Index
+ * B+ tree on an attribute other than the primary key, kept in its own node file. Its keys pair a value with the
+ * primary key of the record holding it, records are then found through the primary key. Records with a null
+ * value are not in the tree. Its nodes are cached in the buffer manager with the table's, under a node file id of
+ * their own
+ */
+package storageManager;
+
+import BPlusTree.Index;
+import BPlusTree.IndexFile;
+import BPlusTree.RangeIterator;
+import BPlusTree.TreeBuilder;
+import BPlusTree.TreeNode;
+import Exceptions.IllegalOperationException;
+import catalog.AttributeSchema;
+import catalog.Catalog;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+public class SecondaryIndex implements IndexFile {
+    // leaves point at nothing, the primary key in each key finds the record wherever it moves
+    private static final Index NO_INDEX = new Index(-1, -1);
+
+    private final Table table;
+    private final BufferManager bufferManager;
+    private final int nodeFileId;
+    private final AttributeSchema attributeSchema;
+    private final AttributeSchema primaryKeySchema;
+    private final int N;
+    private int numNodes;
+    // length the node file has once the cached nodes are written, -1 until known
+    private long nodeFileLength = -1;
+
+    private RandomAccessFile nodeFile;
+    private ByteBuffer nodeBuffer;
+
+    public SecondaryIndex(Table table, AttributeSchema attributeSchema) {
+        this.table = table;
+        this.bufferManager = table.getBufferManager();
+        this.nodeFileId = BufferManager.nodeFileId(table.schema.getTableId(), attributeSchema.getAttributeId());
+        this.attributeSchema = attributeSchema;
+        this.primaryKeySchema = table.schema.getPrimaryKey();
+        this.N = Math.floorDiv(Catalog.getCatalog().getPageSize() - getNodeHeaderSpace(),
+                8 + attributeSchema.getSize() + this.primaryKeySchema.getSize());
+        int pageSize = Catalog.getCatalog().getPageSize();
+        this.numNodes = (int) Math.ceil((double) new File(getLocation()).length() / pageSize);
+        if (this.numNodes == 0) {
+            new TreeNode(this, 0, true).writeNode();
+            this.numNodes = 1;
+        }
+    }
+
+    public AttributeSchema getAttributeSchema() {
+        return this.attributeSchema;
+    }
+
+    public String getLocation() {
+        return this.table.schema.getIndexLocation(this.attributeSchema);
+    }
+
+    private RandomAccessFile getNodeFile() throws IOException {
+        if (this.nodeFile == null) {
+            this.nodeFile = new RandomAccessFile(getLocation(), "rw");
+        }
+        return this.nodeFile;
+    }
+
+    private ByteBuffer getNodeBuffer() {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        if (this.nodeBuffer == null || this.nodeBuffer.capacity() != pageSize) {
+            this.nodeBuffer = ByteBuffer.allocate(pageSize);
+        }
+        this.nodeBuffer.clear();
+        return this.nodeBuffer;
+    }
+
+    /**
+     * Key of a record in the tree
+     * @param record record of the table
+     * @return the key, null if the record's value is null
+     */
+    private IndexKey getKey(Record record) {
+        Attribute attribute = record.getAttribute(this.attributeSchema.getAttributeId());
+        if (attribute == null || attribute.getData() == null) {
+            return null;
+        }
+        return new IndexKey(this.attributeSchema, attribute.getData(), this.primaryKeySchema, record.getPrimaryKeyValue());
+    }
+
+    /**
+     * Add a record's key to the tree
+     * @param record record added to the table
+     */
+    public void insert(Record record) throws IllegalOperationException {
+        IndexKey key = getKey(record);
+        if (key != null) {
+            readNode(0).insert(key, NO_INDEX);
+        }
+    }
+
+    /**
+     * Remove a record's key from the tree. Only its leaf changes, nodes are not merged and a tree that shrank a
+     * lot is rebuilt by dropping and creating the index
+     * @param record record removed from the table
+     */
+    public void delete(Record record) throws IllegalOperationException {
+        IndexKey key = getKey(record);
+        if (key != null) {
+            readNode(0).removeFromLeaf(key);
+        }
+    }
+
+    /**
+     * Build the tree bottom-up from the records of the table, throwing away the one it has
+     * @param records    every record of the table
+     * @param fillFactor fraction of each node to fill, leaving room for later inserts
+     */
+    public void build(ArrayList<Record> records, double fillFactor) throws IllegalOperationException {
+        ArrayList<IndexKey> keys = new ArrayList<>();
+        for (Record record : records) {
+            IndexKey key = getKey(record);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        keys.sort(null);
+        TreeBuilder treeBuilder = new TreeBuilder(this, keys.size(), fillFactor);
+        for (IndexKey key : keys) {
+            treeBuilder.add(key, NO_INDEX);
+        }
+        treeBuilder.finish();
+    }
+
+    /**
+     * Find the primary keys of the records whose value is in a range, ordered by value and then primary key
+     * @param range range of values of the attribute
+     * @return primary key values
+     */
+    public ArrayList<Object> findPrimaryKeys(KeyRange range) throws IllegalOperationException {
+        ArrayList<Object> primaryKeys = new ArrayList<>();
+        RangeIterator iterator = new RangeIterator(this, range);
+        while (iterator.hasNext()) {
+            iterator.next();
+            primaryKeys.add(((IndexKey) iterator.getLastKey()).getPrimaryKey());
+        }
+        return primaryKeys;
+    }
+
+    @Override
+    public Object getSearchKey(Object value) {
+        return new IndexKey(this.attributeSchema, value, this.primaryKeySchema, null);
+    }
+
+    @Override
+    public Object getKeyValue(Attribute key) {
+        return ((IndexKey) key).getValue();
+    }
+
+    @Override
+    public TreeNode readNode(int nodeNumber) throws IllegalOperationException {
+        if (nodeNumber == -1) {
+            return null;
+        }
+        if (this.bufferManager != null) {
+            TreeNode cached = this.bufferManager.getNode(this.nodeFileId, nodeNumber);
+            if (cached != null) {
+                return cached.copy();
+            }
+        }
+        try {
+            int pageSize = Catalog.getCatalog().getPageSize();
+            long offset = (long) nodeNumber * pageSize;
+            ByteBuffer node = getNodeBuffer();
+            try {
+                Table.readFully(getNodeFile().getChannel(), node, offset);
+            } catch (EOFException eof) {
+                if (offset + pageSize > getNodeFileLength()) {
+                    throw new IllegalOperationException("Index node " + nodeNumber + " of " +
+                            this.attributeSchema.getAttributeName() + " is past the end of its file");
+                }
+                // nodes after this one are only in the cache so far, the file reads as zeroes up to them
+                Page.fillZeroes(node, 0, pageSize);
+            }
+            TreeNode newNode = parseNode(node, nodeNumber);
+            if (this.bufferManager != null) {
+                this.bufferManager.putNode(this.nodeFileId, newNode.copy(), false);
+            }
+            return newNode;
+        } catch (IOException error) {
+            System.err.println(error.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Parse a node from a buffer of one page, laid out like a table's index nodes with keys of a value and a
+     * primary key
+     */
+    private TreeNode parseNode(ByteBuffer node, int nodeNumber) {
+        int numberOfKeys = node.getInt(0);
+        int numberOfIndices = node.getInt(4);
+        TreeNode newNode = new TreeNode(this, nodeNumber, node.get(8) != 0);
+        newNode.nextNode = node.getInt(9);
+        newNode.parent = node.getInt(13);
+
+        int position = 17;
+        int keySize = this.attributeSchema.getSize() + this.primaryKeySchema.getSize();
+        for (int i = 0; i < numberOfKeys; i++) {
+            newNode.addKey(IndexKey.read(node, position, this.attributeSchema, this.primaryKeySchema));
+            position += keySize;
+        }
+        for (int i = 0; i < numberOfIndices; i++) {
+            newNode.addIndex(new Index(node.getInt(position), node.getInt(position + 4)));
+            position += 8;
+        }
+        return newNode;
+    }
+
+    /**
+     * Write a node. With a buffer manager the node is cached and written to file once it leaves the cache
+     * @param node node to write
+     * @throws IOException the node file could not be written
+     * @throws IllegalOperationException node does not fit in a page
+     */
+    @Override
+    public void writeNode(TreeNode node) throws IOException, IllegalOperationException {
+        ByteBuffer nodeData = getNodeBuffer();
+        node.serializeNode(nodeData);
+        if (this.bufferManager == null) {
+            writeNodeData(node.getNodeNumber(), nodeData);
+            return;
+        }
+        int pageSize = Catalog.getCatalog().getPageSize();
+        this.nodeFileLength = Math.max(getNodeFileLength(), (long) (node.getNodeNumber() + 1) * pageSize);
+        // cache the node as it would be read back
+        this.bufferManager.putNode(this.nodeFileId, parseNode(nodeData, node.getNodeNumber()), true);
+    }
+
+    /**
+     * Write a cached node to the node file
+     * @param node node to write
+     */
+    void writeNodeToFile(TreeNode node) {
+        try {
+            ByteBuffer nodeData = getNodeBuffer();
+            node.serializeNode(nodeData);
+            writeNodeData(node.getNodeNumber(), nodeData);
+        } catch (IOException | IllegalOperationException error) {
+            System.err.println(error.getMessage());
+        }
+    }
+
+    private void writeNodeData(int nodeNumber, ByteBuffer nodeData) throws IOException {
+        long offset = (long) nodeNumber * Catalog.getCatalog().getPageSize();
+        Table.writeFully(getNodeFile().getChannel(), nodeData, offset);
+    }
+
+    private long getNodeFileLength() throws IOException {
+        if (this.nodeFileLength == -1) {
+            this.nodeFileLength = getNodeFile().getChannel().size();
+        }
+        return this.nodeFileLength;
+    }
+
+    @Override
+    public int getN() {
+        return this.N;
+    }
+
+    @Override
+    public int getNumNodes() {
+        return this.numNodes;
+    }
+
+    @Override
+    public void setNumNodes(int numNodes) {
+        this.numNodes = numNodes;
+    }
+
+    @Override
+    public int getNodeHeaderSpace() {
+        return this.table.getNodeHeaderSpace();
+    }
+
+    @Override
+    public void clearIndex() {
+        if (this.bufferManager != null) {
+            this.bufferManager.discardNodeFile(this.nodeFileId);
+        }
+        try {
+            getNodeFile().getChannel().truncate(0);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        this.numNodes = 0;
+        this.nodeFileLength = 0;
+    }
+
+    /**
+     * Close the node file, it is reopened if the index is used again
+     */
+    public void close() {
+        try {
+            if (this.nodeFile != null) {
+                this.nodeFile.close();
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        this.nodeFile = null;
+    }
+
+    /**
+     * Close and delete the node file, throwing away its cached nodes
+     */
+    public void drop() {
+        if (this.bufferManager != null) {
+            this.bufferManager.discardNodeFile(this.nodeFileId);
+        }
+        close();
+        new File(getLocation()).delete();
+    }
+}
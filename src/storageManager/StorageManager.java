@@ -5,15 +5,18 @@
  */
 package storageManager;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 
 import BPlusTree.Index;
-import BPlusTree.TreeNode;
+import BPlusTree.RangeIterator;
+import BPlusTree.TreeBuilder;
 import Exceptions.DuplicateKeyException;
 import Exceptions.IllegalOperationException;
 import Exceptions.NoTableException;
 import Exceptions.PageOverfullException;
+import catalog.AttributeSchema;
 import catalog.TableSchema;
 import catalog.Catalog;
 
@@ -23,21 +26,41 @@ public class StorageManager {
     private BufferManager bufferManager;
     private static StorageManager storageManager;
     private HashMap<Integer, Table> idToTable;
+    private boolean memoryMapped;
 
     // for debugging
     private boolean verbose = false;
 
-    public StorageManager(int bufferSize) {
+    // room left in index nodes built from existing records, for later inserts
+    private static final double INDEX_FILL_FACTOR = 0.9;
+    // tables with at least this many records report progress while their index is built
+    private static final int PROGRESS_REPORT_RECORDS = 10000;
+
+    public StorageManager(int bufferSize, ReplacementPolicy policy, boolean memoryMapped) {
         if (storageManager == null) {
-            this.bufferManager = new BufferManager(bufferSize);
+            this.memoryMapped = memoryMapped;
             this.idToTable = new HashMap<>();
+            this.bufferManager = new BufferManager(bufferSize, this.idToTable, policy);
             this.readTableData();
         }
     }
 
     public static void InitStorageManager(int bufferSize) {
         if (storageManager == null) {
-            storageManager = new StorageManager(bufferSize);
+            storageManager = new StorageManager(bufferSize, new LRUPolicy(), false);
+        }
+    }
+
+    /**
+     * Initialize the storage manager with a named buffer replacement policy
+     * @param bufferSize   number of pages the buffer holds
+     * @param policyName   lru, clock, lru-k, 2q or arc
+     * @param memoryMapped access table pages through memory mapped files
+     * @throws IllegalOperationException no policy of that name
+     */
+    public static void InitStorageManager(int bufferSize, String policyName, boolean memoryMapped) throws IllegalOperationException {
+        if (storageManager == null) {
+            storageManager = new StorageManager(bufferSize, ReplacementPolicy.create(policyName, bufferSize), memoryMapped);
         }
     }
     public static StorageManager GetStorageManager() {
@@ -50,80 +73,166 @@ public class StorageManager {
             System.out.println("Reading Page Number: " + Integer.toString(pageNumber));
 
         Table table = ensureTable(tableNumber);
-        return bufferManager.getPage(table, pageNumber);
+        int pageId = table.getPageId(pageNumber);
+        if (pageId == -1) {
+            return null;
+        }
+        return bufferManager.getPage(table, pageId);
     }
 
     public void insertRecord(int tableId, Record record) throws PageOverfullException, NoTableException, DuplicateKeyException, IllegalOperationException {
         Table table = ensureTable(tableId);
+        HashIndex hashIndex = table.getHashIndex();
+        // the hash index finds a duplicate with one bucket read, before any page is read
+        if (hashIndex != null && hashIndex.get(record.getPrimaryKeyValue()) != null) {
+            throw new DuplicateKeyException(record.getPrimaryKey());
+        }
+        Page insertedInto;
         if (table.getNumPages() == 0) {
             Page newPage = table.createPage();
             bufferManager.addToBuffer(table, newPage);
             bufferManager.insertRecord(table, newPage, record, 0);
-            return;
+            insertedInto = newPage;
+        } else {
+            // a key already in the table is in the key range of the page found, so the page reports duplicates
+            Page page = bufferManager.getPage(table, table.findInsertPage(record));
+            insertedInto = handleSplit(record, table, page, findInsertPosition(page, record));
         }
-        if (Catalog.getCatalog().getIndexing()) {
-            var existing = getRecordByPrimaryKey(tableId, record.getPrimaryKey());
-            if (existing != null) throw new DuplicateKeyException(record.getPrimaryKey());
-            // Find node it should be inserted in. since it doesnt exist, index.pagenumber will be a node number
-            Index index = table.findIndex(record.getPrimaryKey().getData());
-            int insertPage = findInsertPosition(table, index.pageNumber, record);
-            if (insertPage == -1) { // largest value found,
-                insertPage = table.getNumPages() - 1;
-            }
-            Page page = bufferManager.getPage(table, insertPage);
-            int insertPos = findInsertPosition(page, record);
-            if (insertPos == -1) { // page id is the node number
-                insertPos = page.getRecords().size();
-            }
-            handleSplit(record, table, page, insertPos);
-            return;
+        if (hashIndex != null) {
+            hashIndex.put(record.getPrimaryKeyValue(), insertedInto.getPageId());
         }
-    
-        for (int i = 0; i < table.getNumPages(); i++) {
-            Page page = getPage(tableId, i);
-            int insertPos = findInsertPosition(page, record);
-            // Case where this records primary key is larger than all the others
-            if (insertPos == -1 && i == table.getNumPages() - 1) {
-                insertPos = page.getRecords().size();
-            }
-            if (insertPos != -1) {
-                handleSplit(record, table, page, insertPos);
-                return;
-            }
+        for (SecondaryIndex secondaryIndex : table.getSecondaryIndexes()) {
+            secondaryIndex.insert(record);
         }
-
     }
 
-    private void handleSplit(Record record, Table table, Page page, int insertPos) throws PageOverfullException, IllegalOperationException, DuplicateKeyException {
+    /**
+     * Insert a record into a page, splitting the page first when the record does not fit
+     * @return the page the record was inserted into
+     */
+    private Page handleSplit(Record record, Table table, Page page, int insertPos) throws PageOverfullException, IllegalOperationException, DuplicateKeyException {
         if (page.canInsertRecord(record)) {
             bufferManager.insertRecord(table, page, record, insertPos);
+            return page;
         } else {
             Page newPage = page.splitPage(table);
-            bufferManager.updatePageNumbers(table, newPage.getPageId(), 1);
+            table.updatePageSummary(page);
+            table.updatePageSummary(newPage);
             bufferManager.addToBuffer(table, newPage);
+            HashIndex hashIndex = table.getHashIndex();
+            if (hashIndex != null) {
+                hashIndex.putAll(newPage);
+            }
             insertPos = findInsertPosition(page, record);
-            if (insertPos == -1) {
-                insertPos = findInsertPosition(newPage, record);
-                if (insertPos == -1) {
-                    insertPos = newPage.getRecords().size();
-                }
-                bufferManager.insertRecord(table, newPage, record, insertPos);
+            // Case where this records primary key is larger than all the others left on the page
+            if (insertPos == page.getRecords().size()) {
+                bufferManager.insertRecord(table, newPage, record, findInsertPosition(newPage, record));
+                return newPage;
             } else {
                 bufferManager.insertRecord(table, page, record, insertPos);
+                return page;
             }
         }
     }
 
+    /**
+     * Load a batch of records into a table without the per record work of insertRecord. The records are sorted
+     * by primary key and packed in order into new pages filled up to a fill factor. When the table was empty its
+     * B+ tree is then built bottom-up, otherwise the keys are added to the end of the tree. A batch whose keys do
+     * not all come after the table's keys is inserted record by record instead
+     * @param tableId    table id
+     * @param records    records to load, in any order
+     * @param fillFactor fraction of each page and index node to fill, leaving room for later inserts
+     * @throws DuplicateKeyException two records of the batch, or a record and the table, have the same primary key
+     * @throws IllegalOperationException fill factor is not above 0 and at most 1, or a record does not fit in a page
+     */
+    public void bulkLoad(int tableId, ArrayList<Record> records, double fillFactor) throws NoTableException, DuplicateKeyException, PageOverfullException, IllegalOperationException {
+        if (fillFactor <= 0 || fillFactor > 1) {
+            throw new IllegalOperationException("Fill factor must be above 0 and at most 1");
+        }
+        Table table = ensureTable(tableId);
+        int pageSize = Catalog.getCatalog().getPageSize();
+        ArrayList<Record> sorted = new ArrayList<>(records);
+        sorted.sort(null);
+        for (int i = 0; i < sorted.size(); i++) {
+            Record record = sorted.get(i);
+            if (i > 0 && sorted.get(i - 1).compareTo(record) == 0) {
+                throw new DuplicateKeyException(record.getPrimaryKey());
+            }
+            // page header and the record's slot
+            if (12 + 8 + record.getSizeFile() > pageSize) {
+                throw new IllegalOperationException("Record of " + record.getSizeFile() + " bytes does not fit in a page");
+            }
+        }
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        Object maxKey = table.getMaxKey();
+        if (maxKey != null && Attribute.compareTo(sorted.get(0).getPrimaryKeyValue(), maxKey) <= 0) {
+            for (Record record : sorted) {
+                insertRecord(tableId, record);
+            }
+            return;
+        }
+        boolean indexing = Catalog.getCatalog().getIndexing();
+        TreeBuilder treeBuilder = indexing && table.getNumPages() == 0 ? new TreeBuilder(table, sorted.size(), fillFactor) : null;
+        ArrayList<SecondaryIndex> secondaryIndexes = table.getSecondaryIndexes();
+        HashIndex hashIndex = table.getHashIndex();
+        // free space a page keeps once it is filled
+        int reservedSpace = (int) (pageSize * (1 - fillFactor));
+        Page page = null;
+        for (Record record : sorted) {
+            if (page == null || !page.canInsertRecord(record) || (!page.getRecords().isEmpty()
+                    && page.getFreeSpaceAmount() - (record.getSizeFile() + 8) < reservedSpace)) {
+                if (page != null) {
+                    table.updatePageSummary(page);
+                }
+                page = table.createPage();
+                bufferManager.addToBuffer(table, page);
+            }
+            int slot = page.getRecords().size();
+            page.insertRecord(record, slot);
+            Index index = new Index(page.getPageId(), slot);
+            if (treeBuilder != null) {
+                treeBuilder.add(record.getPrimaryKey(), index);
+            } else if (indexing) {
+                table.insertNode(record.getPrimaryKey(), index);
+            }
+            if (hashIndex != null) {
+                hashIndex.put(record.getPrimaryKeyValue(), page.getPageId());
+            }
+            for (SecondaryIndex secondaryIndex : secondaryIndexes) {
+                secondaryIndex.insert(record);
+            }
+        }
+        table.updatePageSummary(page);
+        if (treeBuilder != null) {
+            treeBuilder.finish();
+        }
+    }
+
     public Record getRecordByPrimaryKey(int tableId, Attribute primaryKey) throws NoTableException, IllegalOperationException {
         Table table = ensureTable(tableId);
 
+        HashIndex hashIndex = table.getHashIndex();
+        if (hashIndex != null) {
+            Integer pageId = hashIndex.get(primaryKey.getData());
+            if (pageId == null) {
+                return null;
+            }
+            Page page = this.bufferManager.getPage(table, pageId);
+            int recordIndex = page.getRecordByKey(primaryKey);
+            return recordIndex == -1 ? null : page.getRecords().get(recordIndex);
+        }
         if (Catalog.getCatalog().getIndexing()) {
             Index index = table.findIndex(primaryKey.getData());
             if (index.recordPointer == -1) { // not found
                 return null;
             }
             Page page = this.bufferManager.getPage(table, index.pageNumber);
-            return page.getRecords().get(index.recordPointer);
+            int recordIndex = page.getRecordByKey(primaryKey, index.recordPointer);
+            return recordIndex == -1 ? null : page.getRecords().get(recordIndex);
         }
         return this.bufferManager.getRecordByPrimaryKey(table, primaryKey);
 
@@ -132,12 +241,65 @@ public class StorageManager {
         Table table = ensureTable(tableNumber);
         ArrayList<Record> result = new ArrayList<>();
         for (int i = 0; i < table.getNumPages(); i++) {
-            result.addAll(bufferManager.getPage(table, i).getRecords());
+            result.addAll(bufferManager.getPage(table, table.getPageId(i)).getRecords());
         }
 
         return result;
     }
 
+    /**
+     * Get the records whose primary key is in a range, in key order. Only the pages holding keys in the range
+     * are read, found through the leaf chain of the B+ tree when indexing and the page key ranges otherwise
+     * @param tableId table id
+     * @param range   range of primary keys
+     * @return records in the range
+     */
+    public ArrayList<Record> getRecordsInRange(int tableId, KeyRange range) throws NoTableException, IllegalOperationException {
+        Table table = ensureTable(tableId);
+        ArrayList<Record> result = new ArrayList<>();
+        if (range.isEmpty() || table.getNumPages() == 0) {
+            return result;
+        }
+        // a range of values of another type cannot be searched for, every record is checked instead
+        if (range.isUnbounded() || !range.isOfType(table.schema.getPrimaryKey().getAttributeType())) {
+            return getAllRecords(tableId);
+        }
+        if (Catalog.getCatalog().getIndexing()) {
+            RangeIterator iterator = new RangeIterator(table, range);
+            int lastPageId = -1;
+            while (iterator.hasNext()) {
+                int pageId = iterator.next().pageNumber;
+                // keys of a page are next to each other in the leaf chain
+                if (pageId != lastPageId) {
+                    addRecordsInRange(bufferManager.getPage(table, pageId), range, result);
+                    lastPageId = pageId;
+                }
+            }
+        } else {
+            int start = range.getLow() == null ? 0 : table.findPagePosition(range.getLow());
+            for (int i = start; i < table.getNumPages(); i++) {
+                Page page = bufferManager.getPage(table, table.getPageId(i));
+                if (range.isAbove(page.getRecords().get(0).getPrimaryKeyValue())) {
+                    break;
+                }
+                addRecordsInRange(page, range, result);
+            }
+        }
+        return result;
+    }
+
+    private void addRecordsInRange(Page page, KeyRange range, ArrayList<Record> result) {
+        ArrayList<Record> records = page.getRecords();
+        int start = 0;
+        if (range.getLow() != null) {
+            int slot = page.searchKey(range.getLow());
+            start = slot < 0 ? -(slot + 1) : (range.isLowInclusive() ? slot : slot + 1);
+        }
+        for (int i = start; i < records.size() && !range.isAbove(records.get(i).getPrimaryKeyValue()); i++) {
+            result.add(records.get(i));
+        }
+    }
+
     public Record deleteRecord(int tableId, Attribute primaryKey) throws NoTableException, IllegalOperationException {
         Table table = ensureTable(tableId);
         Index index = null;
@@ -149,7 +311,16 @@ public class StorageManager {
             // Since the record exists, index will be a page number
             index = table.findIndex(primaryKey.getData());
         }
-        return this.bufferManager.deleteRecord(table, primaryKey, index);
+        Record deleted = this.bufferManager.deleteRecord(table, primaryKey, index);
+        if (deleted != null) {
+            if (table.getHashIndex() != null) {
+                table.getHashIndex().remove(primaryKey.getData());
+            }
+            for (SecondaryIndex secondaryIndex : table.getSecondaryIndexes()) {
+                secondaryIndex.delete(deleted);
+            }
+        }
+        return deleted;
     }
     public void updateRecord(int tableId, Record record) throws NoTableException, PageOverfullException, DuplicateKeyException, IllegalOperationException {
         deleteRecord(tableId, record.getPrimaryKey());
@@ -162,7 +333,7 @@ public class StorageManager {
     private void readTableData() {
         ArrayList<TableSchema> tableSchemas = Catalog.getCatalog().getTableSchema();
         for (TableSchema schema: tableSchemas) {
-            this.idToTable.put(schema.getTableId(), new Table(schema));
+            this.idToTable.put(schema.getTableId(), new Table(schema, this.memoryMapped, this.bufferManager));
         }
     }
 
@@ -179,39 +350,173 @@ public class StorageManager {
             if (newTableSchema == null) {
                 throw new NoTableException(tableId);
             } else {
-                table = new Table(newTableSchema);
+                table = new Table(newTableSchema, this.memoryMapped, this.bufferManager);
                 this.idToTable.put(newTableSchema.getTableId(), table);
             }
         }
         return table;
     }
 
+    /**
+     * Write out the buffer and every table's page directory
+     */
     public void flushBuffer() {
-        this.bufferManager.flush(this.idToTable);
+        this.bufferManager.flush();
+        for (Table table : this.idToTable.values()) {
+            table.writeDirectory();
+        }
     }
 
-    private int findInsertPosition(Table table, int nodeNumber, Record record) throws DuplicateKeyException, IllegalOperationException {
-        TreeNode node = table.readNode(nodeNumber);
-        var sks = node.getSearchKeys();
-        for (int i = 0; i < sks.size(); i++) {
-            if (sks.get(i).compareTo(record.getPrimaryKey()) > 0) {
-                return node.getIndices().get(i).pageNumber;
-            }
+    /**
+     * Write out the buffer and close every table's files. The next storage manager initialized opens the tables
+     * again from their files
+     */
+    public void shutdown() {
+        flushBuffer();
+        for (Table table : this.idToTable.values()) {
+            table.close();
+        }
+        if (storageManager == this) {
+            storageManager = null;
         }
-        return -1;
     }
 
-    private int findInsertPosition(Page page, Record record) throws DuplicateKeyException {
-        ArrayList<Record> records = page.getRecords();
-        for (int i = 0; i < records.size(); i++) {
-            if (records.get(i).compareTo(record) > 0) {
-                return i;
-            } else if (records.get(i).compareTo(record) == 0) {
-                throw new DuplicateKeyException(record.getPrimaryKey());
+    /**
+     * Discard a table's buffered pages, close its files and delete them
+     * @param tableId table id
+     * @throws NoTableException no table of tableId
+     */
+    public void dropTable(int tableId) throws NoTableException {
+        Table table = ensureTable(tableId);
+        this.bufferManager.discardTable(tableId);
+        table.close();
+        new File(table.schema.getPageLocation()).delete();
+        new File(table.schema.getNodeLocation()).delete();
+        new File(table.schema.getDirectoryLocation()).delete();
+        for (SecondaryIndex secondaryIndex : table.getSecondaryIndexes()) {
+            secondaryIndex.drop();
+        }
+        if (table.getHashIndex() != null) {
+            table.getHashIndex().drop();
+        }
+        this.idToTable.remove(tableId);
+    }
+
+    /**
+     * Create a secondary index on an attribute, built from the records the table has
+     * @param tableId       table id
+     * @param attributeName name of the attribute
+     * @throws IllegalOperationException no such attribute, it is the primary key or it is already indexed
+     */
+    public void createIndex(int tableId, String attributeName) throws NoTableException, IllegalOperationException {
+        Table table = ensureTable(tableId);
+        AttributeSchema attributeSchema = table.schema.getAttributeSchema(attributeName);
+        if (attributeSchema == null) {
+            throw new IllegalOperationException("Table " + table.schema.getTableName() + " has no attribute " + attributeName);
+        } else if (attributeSchema.isKey()) {
+            throw new IllegalOperationException("The primary key " + attributeName + " can not have a secondary index");
+        } else if (table.schema.isIndexed(attributeSchema)) {
+            throw new IllegalOperationException("Attribute " + attributeName + " already has an index");
+        }
+        table.schema.addIndex(attributeSchema);
+        table.getSecondaryIndex(attributeSchema.getAttributeId()).build(getAllRecords(tableId), INDEX_FILL_FACTOR);
+    }
+
+    /**
+     * Create a hash index on the primary key, filled from the pages the table has. Point lookups and duplicate
+     * checks then go through it
+     * @param tableId       table id
+     * @param attributeName name of the primary key
+     * @throws IllegalOperationException no such attribute, it is not the primary key or it already has a hash index
+     */
+    public void createHashIndex(int tableId, String attributeName) throws NoTableException, IllegalOperationException {
+        Table table = ensureTable(tableId);
+        AttributeSchema attributeSchema = table.schema.getAttributeSchema(attributeName);
+        if (attributeSchema == null) {
+            throw new IllegalOperationException("Table " + table.schema.getTableName() + " has no attribute " + attributeName);
+        } else if (!attributeSchema.isKey()) {
+            throw new IllegalOperationException("Only the primary key can have a hash index, " + attributeName + " is not it");
+        } else if (table.schema.hasHashIndex()) {
+            throw new IllegalOperationException("Attribute " + attributeName + " already has a hash index");
+        }
+        table.schema.setHashIndexed(true);
+        HashIndex hashIndex = table.getHashIndex();
+        hashIndex.clear();
+        for (int i = 0; i < table.getNumPages(); i++) {
+            hashIndex.putAll(bufferManager.getPage(table, table.getPageId(i)));
+        }
+    }
+
+    /**
+     * Drop the secondary index of an attribute, or the hash index of the primary key, and delete its files
+     * @param tableId       table id
+     * @param attributeName name of the attribute
+     * @throws IllegalOperationException the attribute has no index
+     */
+    public void dropIndex(int tableId, String attributeName) throws NoTableException, IllegalOperationException {
+        Table table = ensureTable(tableId);
+        AttributeSchema attributeSchema = table.schema.getAttributeSchema(attributeName);
+        if (attributeSchema != null && attributeSchema.isKey() && table.schema.hasHashIndex()) {
+            table.getHashIndex().drop();
+            table.schema.setHashIndexed(false);
+            table.removeHashIndex();
+            return;
+        }
+        if (attributeSchema == null || !table.schema.isIndexed(attributeSchema)) {
+            throw new IllegalOperationException("Attribute " + attributeName + " has no index");
+        }
+        table.getSecondaryIndex(attributeSchema.getAttributeId()).drop();
+        table.schema.removeIndex(attributeSchema);
+        table.removeSecondaryIndex(attributeSchema.getAttributeId());
+    }
+
+    /**
+     * Get the records whose value of an indexed attribute is in a range, through the attribute's secondary index.
+     * Records come in primary key order
+     * @param tableId     table id
+     * @param attributeId id of the indexed attribute
+     * @param range       range of values of the attribute
+     * @return records in the range
+     * @throws IllegalOperationException the attribute has no index
+     */
+    public ArrayList<Record> getRecordsByIndex(int tableId, int attributeId, KeyRange range) throws NoTableException, IllegalOperationException {
+        Table table = ensureTable(tableId);
+        SecondaryIndex secondaryIndex = table.getSecondaryIndex(attributeId);
+        if (secondaryIndex == null) {
+            throw new IllegalOperationException("Attribute " + attributeId + " of " + table.schema.getTableName() + " has no index");
+        }
+        ArrayList<Record> result = new ArrayList<>();
+        if (range.isEmpty() || !range.isOfType(secondaryIndex.getAttributeSchema().getAttributeType())) {
+            return range.isEmpty() ? result : getAllRecords(tableId);
+        }
+        ArrayList<Object> primaryKeys = secondaryIndex.findPrimaryKeys(range);
+        primaryKeys.sort((a, b) -> Attribute.compareTo(a, b));
+        for (Object primaryKey : primaryKeys) {
+            Record record = getRecordByPrimaryKey(tableId, new Attribute(table.schema.getPrimaryKey(), primaryKey));
+            if (record != null) {
+                result.add(record);
             }
         }
+        return result;
+    }
+
+    public String getBufferStatistics() {
+        return this.bufferManager.getStatistics();
+    }
 
-        return -1;
+    /**
+     * Find the slot a record is inserted at in a page
+     * @param page   page to insert into
+     * @param record record to insert
+     * @return slot to insert the record at, the number of records if its key is larger than all of them
+     * @throws DuplicateKeyException the page has a record with the same primary key
+     */
+    private int findInsertPosition(Page page, Record record) throws DuplicateKeyException {
+        int slot = page.searchKey(record.getPrimaryKeyValue());
+        if (slot >= 0) {
+            throw new DuplicateKeyException(record.getPrimaryKey());
+        }
+        return -(slot + 1);
     }
 
     // For test class use only
@@ -219,19 +524,34 @@ public class StorageManager {
         return idToTable;
     }
 
+    /**
+     * Turn on indexing, building each table's B+ tree bottom-up from its pages, which are already in key order.
+     * Progress is reported for large tables
+     * @return whether every index was built
+     */
     public boolean turnOnIndexing() {
         System.out.println("Creating indices for existing records in all tables...");
         Catalog.getCatalog().setIndexing(true);
         try {
             for (Table table: idToTable.values()) {
-                table.ensureIndex();
+                int numRecords = Math.toIntExact(table.getNumRecords());
+                TreeBuilder treeBuilder = new TreeBuilder(table, numRecords, INDEX_FILL_FACTOR);
+                boolean reportProgress = numRecords >= PROGRESS_REPORT_RECORDS;
+                int reportedPercent = 0;
                 for (int i = 0; i < table.getNumPages(); i++) {
                     Page page = getPage(table.schema.getTableId(), i);
                     var records = page.getRecords();
                     for (int j = 0; j < records.size(); j++) {
-                        table.insertNode(records.get(j).getPrimaryKey(), new Index(page.getPageId(), j));
+                        treeBuilder.add(records.get(j).getPrimaryKey(), new Index(page.getPageId(), j));
+                    }
+                    int percent = (int) (100L * treeBuilder.getNumAdded() / Math.max(numRecords, 1));
+                    if (reportProgress && percent >= reportedPercent + 10) {
+                        reportedPercent = percent - percent % 10;
+                        System.out.println("Indexed " + treeBuilder.getNumAdded() + " of " + numRecords + " records in " +
+                                table.schema.getTableName() + " (" + reportedPercent + "%)");
                     }
                 }
+                treeBuilder.finish();
             }
         } catch (NoTableException | IllegalOperationException nte) {
             System.err.println(nte.getMessage());
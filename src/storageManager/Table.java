@@ -11,22 +11,54 @@ import catalog.AttributeSchema;
 import catalog.AttributeType;
 import catalog.Catalog;
 import catalog.TableSchema;
+import java.io.EOFException;
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.io.IOException;
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-public class Table {
+public class Table implements IndexFile {
     public TableSchema schema;
     public int N;
     public int numNodes;
 
+    // file handles are opened on first use and kept open until the table is closed
+    private RandomAccessFile pageFile;
+    private RandomAccessFile nodeFile;
+    // reused for every node read and every page or node written
+    private ByteBuffer pageBuffer;
+    private RecordLayout recordLayout;
 
-    public Table(TableSchema schema) {
+    // the table's pages in order of their keys. A page keeps its id for life, it is also where the
+    // page is in the page file. Loaded on first use
+    private PageDirectory pageDirectory;
+
+    // caches index nodes when set, nodes written to it reach the node file when they leave the cache
+    private final BufferManager bufferManager;
+    // length of the node file including nodes only written to the cache, -1 until it is needed
+    private long nodeFileLength = -1;
+
+    // secondary indexes by attribute id, opened on first use
+    private HashMap<Integer, SecondaryIndex> secondaryIndexes;
+    // hash index of the primary key, opened on first use
+    private HashIndex hashIndex;
+
+    // when set, pages are accessed through memory mapped regions of the page file instead of reads and writes
+    private final boolean memoryMapped;
+    private LinkedHashMap<Integer, MappedByteBuffer> mappedPages;
+    private static final int MAX_MAPPED_PAGES = 4096;
+
+
+    public Table(TableSchema schema, boolean memoryMapped, BufferManager bufferManager) {
         this.schema = schema;
+        this.memoryMapped = memoryMapped;
+        this.bufferManager = bufferManager;
         this.schema.setNumPages(readNumPages());
 
         AttributeSchema primaryKey = schema.getPrimaryKey();
@@ -50,6 +82,151 @@ public class Table {
         return this.schema.getNumPages();
     }
 
+    /**
+     * Get the open handle to this table's page file, opening it if needed
+     *
+     * @return page file handle
+     * @throws IOException page file could not be opened
+     */
+    public RandomAccessFile getPageFile() throws IOException {
+        if (this.pageFile == null) {
+            this.pageFile = new RandomAccessFile(schema.getPageLocation(), "rw");
+        }
+        return this.pageFile;
+    }
+
+    /**
+     * Get the open handle to this table's index file, opening it if needed
+     *
+     * @return index file handle
+     * @throws IOException index file could not be opened
+     */
+    public RandomAccessFile getNodeFile() throws IOException {
+        if (this.nodeFile == null) {
+            this.nodeFile = new RandomAccessFile(schema.getNodeLocation(), "rw");
+        }
+        return this.nodeFile;
+    }
+
+    /**
+     * Close the table's file handles. They are reopened if the table is used again
+     */
+    public void close() {
+        try {
+            if (this.pageFile != null) {
+                this.pageFile.close();
+            }
+            if (this.nodeFile != null) {
+                this.nodeFile.close();
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        this.pageFile = null;
+        this.nodeFile = null;
+        this.nodeFileLength = -1;
+        this.mappedPages = null;
+        for (SecondaryIndex secondaryIndex : getSecondaryIndexes()) {
+            secondaryIndex.close();
+        }
+        if (this.hashIndex != null) {
+            this.hashIndex.close();
+        }
+    }
+
+    /**
+     * Get the secondary indexes of the table's attributes
+     *
+     * @return one index for each indexed attribute
+     */
+    public ArrayList<SecondaryIndex> getSecondaryIndexes() {
+        ArrayList<SecondaryIndex> indexes = new ArrayList<>();
+        for (int attributeId : schema.getIndexedAttributes()) {
+            SecondaryIndex secondaryIndex = getSecondaryIndex(attributeId);
+            if (secondaryIndex != null) {
+                indexes.add(secondaryIndex);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Get the secondary index of an attribute
+     *
+     * @param attributeId id of the attribute
+     * @return the index, null if the attribute is not indexed
+     */
+    public SecondaryIndex getSecondaryIndex(int attributeId) {
+        AttributeSchema attributeSchema = schema.getAttributeSchema(attributeId);
+        if (attributeSchema == null || !schema.isIndexed(attributeSchema)) {
+            return null;
+        }
+        if (this.secondaryIndexes == null) {
+            this.secondaryIndexes = new HashMap<>();
+        }
+        return this.secondaryIndexes.computeIfAbsent(attributeId, id -> new SecondaryIndex(this, attributeSchema));
+    }
+
+    /**
+     * Stop keeping the secondary index of an attribute. The schema should no longer list it
+     *
+     * @param attributeId id of the attribute
+     */
+    public void removeSecondaryIndex(int attributeId) {
+        if (this.secondaryIndexes != null) {
+            this.secondaryIndexes.remove(attributeId);
+        }
+    }
+
+    /**
+     * Get the hash index of the primary key
+     *
+     * @return the index, null if the table does not have one
+     */
+    public HashIndex getHashIndex() {
+        if (!schema.hasHashIndex()) {
+            return null;
+        }
+        if (this.hashIndex == null) {
+            this.hashIndex = new HashIndex(schema);
+        }
+        return this.hashIndex;
+    }
+
+    /**
+     * Stop keeping the hash index of the primary key. The schema should no longer have one
+     */
+    public void removeHashIndex() {
+        this.hashIndex = null;
+    }
+
+    /**
+     * Get the memory mapped region of the page file holding a page, mapping it if needed.
+     * Regions beyond the end of the file extend the file when mapped
+     *
+     * @param pageNumber page to map
+     * @return buffer backed by the page's bytes in the file
+     * @throws IOException page file could not be mapped
+     */
+    private MappedByteBuffer getMappedPage(int pageNumber) throws IOException {
+        if (this.mappedPages == null) {
+            // least recently used regions are dropped so they can be unmapped
+            this.mappedPages = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, MappedByteBuffer> eldest) {
+                    return size() > MAX_MAPPED_PAGES;
+                }
+            };
+        }
+        MappedByteBuffer region = this.mappedPages.get(pageNumber);
+        if (region == null) {
+            int pageSize = Catalog.getCatalog().getPageSize();
+            region = getPageFile().getChannel().map(FileChannel.MapMode.READ_WRITE, (long) pageNumber * pageSize, pageSize);
+            this.mappedPages.put(pageNumber, region);
+        }
+        return region;
+    }
+
 
     /**
      * Get the number of pages that belong to this table
@@ -57,45 +234,186 @@ public class Table {
      * @return number of pages that belong to this table
      */
     public int readNumPages() {
-        try {
-            String location = schema.getPageLocation();
-            File file = new File(location);
+        return getPageDirectory().size();
+    }
 
-            if (!file.exists()) {
-                return 0;
+    /**
+     * Get the page directory, reading it from its file if needed. A directory that could not be read as written,
+     * like one left open by a crash or the missing directory of a table written before there were any, is rebuilt
+     * by reading every page of the page file once
+     *
+     * @return the page directory
+     */
+    private PageDirectory getPageDirectory() {
+        if (this.pageDirectory != null) {
+            return this.pageDirectory;
+        }
+        int pageSize = Catalog.getCatalog().getPageSize();
+        try {
+            this.pageDirectory = PageDirectory.read(schema.getDirectoryLocation(), new File(schema.getPageLocation()),
+                    pageSize, schema.getPrimaryKey());
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            this.pageDirectory = PageDirectory.empty(schema.getDirectoryLocation(), schema.getPrimaryKey());
+        }
+        if (this.pageDirectory.isRebuilding()) {
+            for (int pageId = 0; pageId < this.pageDirectory.getPageSlots(); pageId++) {
+                this.pageDirectory.rebuild(pageId, readPage(pageId));
             }
-            long fileSize = file.length();
-            int pageSize = Catalog.getCatalog().getPageSize();
-            int numPages = (int) Math.ceil((double) fileSize / pageSize);
+            this.pageDirectory.finishRebuild();
+        }
+        return this.pageDirectory;
+    }
 
-            return numPages;
-        } catch (Exception e) {
+    /**
+     * Write the page directory to its file if it changed
+     */
+    public void writeDirectory() {
+        try {
+            getPageDirectory().write();
+        } catch (IOException e) {
             System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Get the id of the page at some position in the table
+     *
+     * @param position position of the page in key order
+     * @return page id, -1 if the table has no page at that position
+     */
+    public int getPageId(int position) {
+        return getPageDirectory().getPageId(position);
+    }
+
+    /**
+     * Get the position of a page in the table
+     *
+     * @param pageId id of the page
+     * @return position of the page in key order, -1 if the table has no such page
+     */
+    public int getPagePosition(int pageId) {
+        return getPageDirectory().indexOf(pageId);
+    }
+
+    /**
+     * Find the only page that can hold a primary key from the key ranges of the pages, without reading any page
+     *
+     * @param key primary key
+     * @return id of the page, -1 if the table has no pages
+     */
+    public int findPage(Object key) {
+        return getPageId(findPagePosition(key));
+    }
+
+    /**
+     * Find the position of the only page that can hold a primary key, pages after it only have larger keys
+     *
+     * @param key primary key
+     * @return position of the page in key order, -1 if the table has no pages
+     */
+    public int findPagePosition(Object key) {
+        PageDirectory directory = getPageDirectory();
+        if (directory.size() == 0) {
+            return -1;
+        }
+        return directory.findPosition(key, 0);
+    }
+
+    /**
+     * Find the page a record belongs on from the key ranges of the pages, without reading any page
+     *
+     * @param record record to place
+     * @return id of the page, -1 if the table has no pages
+     */
+    public int findInsertPage(Record record) {
+        PageDirectory directory = getPageDirectory();
+        if (directory.size() == 0) {
             return -1;
         }
+        // the record takes a slot as well
+        return directory.getPageId(directory.findPosition(record.getPrimaryKeyValue(), record.getSizeFile() + 8));
+    }
+
+    /**
+     * Count the records of the table from the page directory, without reading any page
+     *
+     * @return number of records
+     */
+    public long getNumRecords() {
+        return getPageDirectory().getNumRecords();
+    }
+
+    /**
+     * Get the largest primary key in the table from the key ranges of the pages, without reading any page
+     *
+     * @return the key, null if the table has no records
+     */
+    public Object getMaxKey() {
+        return getPageDirectory().getMaxKey();
     }
 
     /**
-     * Create a Page at the end of the file for this table
+     * Record a page's free space and key range after its records changed
+     *
+     * @param page the page
+     */
+    public void updatePageSummary(Page page) {
+        getPageDirectory().update(page);
+    }
+
+    /**
+     * Create a Page after the last page of this table
      *
      * @return new page
      */
     public Page createPage() {
-        int pageId = this.getNumPages();
-        updatePageCount(1);
+        int pageId = addPage(getNumPages());
         return new Page(schema.getTableId(), pageId, Catalog.getCatalog().getPageSize(), new ArrayList<>());
     }
 
     /**
-     * Increment the amount of pages this table has
+     * Add a page to the table. It takes the slot of a removed page, or goes at the end of the page file,
+     * wherever it is placed among the other pages, so no other page moves
+     *
+     * @param position position of the new page in key order
+     * @return id of the new page
      */
-    public void updatePageCount(int change) {
-        this.schema.incrementNumPages(change);
-        String location = schema.getPageLocation();
-        try (RandomAccessFile file = new RandomAccessFile(location, "rw");
-             FileChannel fileChannel = file.getChannel()) {
-                fileChannel.truncate((long) getNumPages() * Catalog.getCatalog().getPageSize());
+    public int addPage(int position) {
+        int pageId = getPageDirectory().add(position);
+        this.schema.incrementNumPages(1);
+        return pageId;
+    }
 
+    /**
+     * Remove a page from the table. Its slot is kept for the next new page, and the page file shrinks when
+     * slots at its end are free
+     *
+     * @param pageId id of the page
+     */
+    public void removePage(int pageId) {
+        PageDirectory directory = getPageDirectory();
+        int pageSlots = directory.getPageSlots();
+        if (!directory.remove(pageId)) {
+            return;
+        }
+        this.schema.incrementNumPages(-1);
+        if (directory.getPageSlots() != pageSlots) {
+            truncatePageFile(directory.getPageSlots());
+        }
+    }
+
+    /**
+     * Cut the page file down to a number of page slots
+     */
+    private void truncatePageFile(int pageSlots) {
+        try {
+            FileChannel fileChannel = getPageFile().getChannel();
+            fileChannel.truncate((long) pageSlots * Catalog.getCatalog().getPageSize());
+            if (this.mappedPages != null) {
+                // regions past the new end of the file must never be touched again
+                this.mappedPages.keySet().removeIf(pageNumber -> pageNumber >= pageSlots);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -103,57 +421,71 @@ public class Table {
 
     public void writePage(Page page) {
         try {
-            String location = schema.getPageLocation();
-            Catalog catalog = Catalog.getCatalog();
-            RandomAccessFile file = new RandomAccessFile(location, "rw");
-            long offset = page.getPageId() * Catalog.getCatalog().getPageSize();
-            byte[] pageData = page.serializePage();
-            if (pageData.length != catalog.getPageSize()) {
-                throw new IllegalOperationException("Tried to write page of size " + pageData.length + " bytes which is not the defined page size");
-            }
-            file.seek(offset);
-            file.write(pageData);
-            file.close();
+            ByteBuffer pageData = getPageBuffer();
+            page.serializePage(pageData);
+            writePageData(page.getPageId(), pageData);
         } catch (IOException | IllegalOperationException error) {
             System.err.println(error.getMessage());
         }
     }
 
-
-    public Page readPage(int pageNumber) {
+    /**
+     * Zero the slot of a removed page in the page file. It reads as a page without records, which a rebuilt
+     * page directory takes for a free slot rather than bringing back the records the page had
+     *
+     * @param pageId id of the removed page
+     */
+    public void clearPage(int pageId) {
         try {
-            String location = schema.getPageLocation();
-            RandomAccessFile file = new RandomAccessFile(location, "r");
-
-            long pageOffset = pageNumber * Catalog.getCatalog().getPageSize();
-
-            file.seek(pageOffset);
-
-            // read page header
-            int pageId = file.readInt();
-            int numberOfSlots = file.readInt();
-            int endOfFreeSpace = file.readInt();
+            ByteBuffer pageData = getPageBuffer();
+            Page.fillZeroes(pageData, 0, pageData.capacity());
+            writePageData(pageId, pageData);
+        } catch (IOException error) {
+            System.err.println(error.getMessage());
+        }
+    }
 
-            ArrayList<Record> records = new ArrayList<>();
+    private void writePageData(int pageId, ByteBuffer pageData) throws IOException {
+        if (this.memoryMapped) {
+            getMappedPage(pageId).put(0, pageData, 0, pageData.capacity());
+        } else {
+            writeFully(getPageFile().getChannel(), pageData, (long) pageId * Catalog.getCatalog().getPageSize());
+        }
+    }
 
-            // read slot positions
-            int[] recordPositions = new int[numberOfSlots];
-            int[] recordSizes = new int[numberOfSlots];
 
-            for (int i = 0; i < numberOfSlots; i++) {
-                recordPositions[i] = file.readInt();
-                recordSizes[i] = file.readInt();
+    public Page readPage(int pageNumber) {
+        if (pageNumber < 0 || pageNumber >= getPageDirectory().getPageSlots()) {
+            return null;
+        }
+        try {
+            // records decode from the page bytes on demand, so each page gets its own copy
+            int pageSize = Catalog.getCatalog().getPageSize();
+            ByteBuffer page = ByteBuffer.allocate(pageSize);
+            long pageOffset = (long) pageNumber * pageSize;
+            if (this.memoryMapped) {
+                // mapping would extend the file, a page that was never written must fail like a read does
+                if (pageOffset >= getPageFile().getChannel().size()) {
+                    throw new EOFException("Reached end of file at offset " + pageOffset);
+                }
+                page.put(0, getMappedPage(pageNumber), 0, pageSize);
+            } else {
+                readFully(getPageFile().getChannel(), page, pageOffset);
             }
 
-            // start reading each record
+            // read page header
+            int pageId = page.getInt(0);
+            int numberOfSlots = page.getInt(4);
+            int endOfFreeSpace = page.getInt(8);
+
+            // decode each record through its slot (position | length)
+            RecordLayout layout = getRecordLayout();
+            ArrayList<Record> records = new ArrayList<>(numberOfSlots);
             for (int i = 0; i < numberOfSlots; i++) {
-                file.seek(pageOffset + recordPositions[i]);
-                byte[] recordBytes = new byte[recordSizes[i]];
-                file.readFully(recordBytes);
-                Record record = readRecord(recordBytes);
-                records.add(record);
+                int recordPosition = page.getInt(12 + (8 * i));
+                int recordLength = page.getInt(16 + (8 * i));
+                records.add(readRecord(page, recordPosition, recordLength, layout));
             }
-            file.close();
             return new Page(this.schema.getTableId(), pageNumber, Catalog.getCatalog().getPageSize(), records);
         } catch (IOException error) {
             System.err.println(error.getMessage());
@@ -161,71 +493,132 @@ public class Table {
         }
     }
 
-    private Record readRecord(byte[] recordBytes) throws IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream(recordBytes);
-        DataInputStream dis = new DataInputStream(bais);
+    /**
+     * Get the reusable buffer pages and nodes are read into and serialized into
+     *
+     * @return cleared buffer of one page
+     */
+    public ByteBuffer getPageBuffer() {
+        int pageSize = Catalog.getCatalog().getPageSize();
+        if (this.pageBuffer == null || this.pageBuffer.capacity() != pageSize) {
+            this.pageBuffer = ByteBuffer.allocate(pageSize);
+        }
+        this.pageBuffer.clear();
+        return this.pageBuffer;
+    }
 
-        int numAttributes = dis.readInt();
+    /**
+     * Fill a buffer from a file with positional reads, without moving the file pointer
+     *
+     * @param channel  file to read from
+     * @param buffer   buffer to fill
+     * @param position offset in the file to start reading at
+     * @throws IOException the file ended before the buffer was filled
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read == -1) {
+                throw new EOFException("Reached end of file at offset " + (position + buffer.position()));
+            }
+        }
+    }
 
-        ArrayList<Attribute> attributes = new ArrayList<>();
-        int[] attributePositions = new int[numAttributes];
-        int[] attributeSizes = new int[numAttributes];
-        int[] attributeIds = new int[numAttributes];
+    /**
+     * Write a whole buffer to a file with positional writes, without moving the file pointer
+     *
+     * @param channel  file to write to
+     * @param buffer   buffer to write, from its position to its limit
+     * @param position offset in the file to start writing at
+     * @throws IOException the file could not be written
+     */
+    public static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - start);
+        }
+    }
 
-        for (int i = 0; i < numAttributes; i++) {
-            attributePositions[i] = dis.readInt();
-            attributeSizes[i] = dis.readInt();
-            attributeIds[i] = dis.readInt();
+    /**
+     * Get the layout of records holding every attribute of the table
+     *
+     * @return shared record layout, replaced when the schema changes
+     */
+    public RecordLayout getRecordLayout() {
+        if (this.recordLayout == null || !this.recordLayout.describes(this.schema.getAttributeSchema())) {
+            this.recordLayout = RecordLayout.of(this.schema.getAttributeSchema());
+        }
+        return this.recordLayout;
+    }
+
+    /**
+     * Read a record from a page. Records stored with exactly the attributes of the layout are decoded lazily,
+     * anything else, such as records still holding a dropped attribute, is decoded right away
+     */
+    private Record readRecord(ByteBuffer page, int recordPosition, int recordLength, RecordLayout layout) {
+        int numAttributes = page.getInt(recordPosition);
+        if (numAttributes == layout.size()) {
+            boolean matchesLayout = true;
+            for (int i = 0; i < numAttributes && matchesLayout; i++) {
+                matchesLayout = page.getInt(recordPosition + 12 + (12 * i)) == layout.get(i).getAttributeId();
+            }
+            if (matchesLayout) {
+                return new Record(layout, page, recordPosition, recordLength);
+            }
         }
 
+        ArrayList<Attribute> attributes = new ArrayList<>(numAttributes);
         for (int i = 0; i < numAttributes; i++) {
-            // seek to the attributes position
-            dis.reset();
-            dis.skipBytes(attributePositions[i]);
-
-            byte[] attributeData = new byte[attributeSizes[i]];
-            dis.readFully(attributeData);
-            Attribute attribute = readAttribute(attributeData, this.schema.getAttributeSchema(attributeIds[i]));
-            if (attribute != null) {
-                attributes.add(attribute);
+            // attribute pointer: position in record | size | attribute id
+            int pointer = recordPosition + 4 + (12 * i);
+            int attributePosition = page.getInt(pointer);
+            int attributeSize = page.getInt(pointer + 4);
+            int attributeId = page.getInt(pointer + 8);
+            AttributeSchema attributeSchema = this.schema.getAttributeSchema(attributeId);
+            if (attributeSchema != null) {
+                attributes.add(readAttribute(page, recordPosition + attributePosition, attributeSize, attributeSchema));
             }
         }
 
         return new Record(attributes);
     }
 
-    private Attribute readAttribute(byte[] attributeData, AttributeSchema attributeSchema) throws IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream(attributeData);
-        DataInputStream dis = new DataInputStream(bais);
-        AttributeType type = attributeSchema.getAttributeType();
-        Object data = null;
-        dis.mark(1);
-        byte isNull = dis.readByte();
-        if (isNull == 0 && attributeData.length == 1) {
+    static Attribute readAttribute(ByteBuffer buffer, int position, int size, AttributeSchema attributeSchema) {
+        return new Attribute(attributeSchema, readValue(buffer, position, size, attributeSchema.getAttributeType().type));
+    }
+
+    /**
+     * Decode a value written by Attribute.serialize
+     *
+     * @param buffer   buffer holding the value
+     * @param position offset of the value in the buffer
+     * @param size     number of bytes the value takes
+     * @param type     type of the value
+     * @return the value, null if it was null
+     */
+    static Object readValue(ByteBuffer buffer, int position, int size, AttributeType.TYPE type) {
+        // an empty varchar takes no bytes, so only look for the null bitmap when there is one
+        if (size == 1 && buffer.get(position) == 0) {
             // null bitmap is the same as a false boolean, if the attribute type is boolean, just read in a false
-            if (type.type == AttributeType.TYPE.BOOLEAN) {
-                data = Boolean.FALSE;
-            }
-        } else {
-            dis.reset();
-            switch (type.type) {
-                case INT:
-                    data = dis.readInt();
-                    break;
-                case DOUBLE:
-                    data = dis.readDouble();
-                    break;
-                case BOOLEAN:
-                    data = dis.readBoolean();
-                    break;
-                case CHAR:
-                case VARCHAR:
-                    data = (new String(attributeData).trim());
-                    break;
+            if (type == AttributeType.TYPE.BOOLEAN) {
+                return Boolean.FALSE;
             }
+            return null;
         }
-
-        return new Attribute(attributeSchema, data);
+        switch (type) {
+            case INT:
+                return buffer.getInt(position);
+            case DOUBLE:
+                return buffer.getDouble(position);
+            case BOOLEAN:
+                return buffer.get(position) != 0;
+            case CHAR:
+            case VARCHAR:
+                byte[] stringBytes = new byte[size];
+                buffer.get(position, stringBytes);
+                return new String(stringBytes).trim();
+        }
+        return null;
     }
 
     public int getNodeHeaderSpace() {
@@ -241,36 +634,32 @@ public class Table {
     public TreeNode readNode(int nodeNumber) throws IllegalOperationException {
         try {
             if (nodeNumber == -1) return null;
-            String location = schema.getNodeLocation();
-            RandomAccessFile file = new RandomAccessFile(location, "rw");
-            long offset = nodeNumber * Catalog.getCatalog().getPageSize();
-            file.seek(offset);
             AttributeSchema primaryKey = schema.getPrimaryKey();
             if (primaryKey == null) {
                 throw new IllegalOperationException("Cant use indexes with no primary key defined");
             }
-            int numberOfKeys = file.readInt();
-            int numberOfIndices = file.readInt();
-            boolean isLeaf = file.readBoolean();
-            int nextNode = file.readInt();
-            int parent = file.readInt();
-            TreeNode newNode = new TreeNode(this, nodeNumber, isLeaf);
-            newNode.nextNode = nextNode;
-            newNode.parent = parent;
-
-            int attributeSize = primaryKey.getSize();
-            for (int i = 0; i < numberOfKeys; i++) {
-                byte[] attributeData = new byte[attributeSize];
-                file.readFully(attributeData);
-                Attribute attribute = readAttribute(attributeData, primaryKey);
-                newNode.addKey(attribute);
+            if (this.bufferManager != null) {
+                TreeNode cached = this.bufferManager.getNode(getNodeFileId(), nodeNumber);
+                if (cached != null) {
+                    return cached.copy();
+                }
             }
-            for (int i = 0; i < numberOfIndices; i++) {
-                int pagePointer = file.readInt();
-                int recordPointer = file.readInt();
-                newNode.addIndex(new Index(pagePointer, recordPointer));
+            int pageSize = Catalog.getCatalog().getPageSize();
+            long offset = (long) nodeNumber * pageSize;
+            ByteBuffer node = getPageBuffer();
+            try {
+                readFully(getNodeFile().getChannel(), node, offset);
+            } catch (EOFException eof) {
+                // nodes after this one are only in the cache so far, the file reads as zeroes up to them
+                if (offset + pageSize > getNodeFileLength()) {
+                    throw eof;
+                }
+                Page.fillZeroes(node, 0, pageSize);
+            }
+            TreeNode newNode = parseNode(node, nodeNumber, primaryKey);
+            if (this.bufferManager != null) {
+                this.bufferManager.putNode(getNodeFileId(), newNode.copy(), false);
             }
-            file.close();
             return newNode;
         } catch (IOException error) {
             System.err.println(error.getMessage());
@@ -278,15 +667,103 @@ public class Table {
         return null;
     }
 
+    /**
+     * Write a node. With a buffer manager the node is cached and written to file once it leaves the cache
+     * @param node node to write
+     * @throws IOException the node file could not be written
+     * @throws IllegalOperationException node does not fit in a page
+     */
+    public void writeNode(TreeNode node) throws IOException, IllegalOperationException {
+        ByteBuffer nodeData = getPageBuffer();
+        node.serializeNode(nodeData);
+        if (this.bufferManager == null) {
+            writeNodeData(node.getNodeNumber(), nodeData);
+            return;
+        }
+        int pageSize = Catalog.getCatalog().getPageSize();
+        this.nodeFileLength = Math.max(getNodeFileLength(), (long) (node.getNodeNumber() + 1) * pageSize);
+        // cache the node as it would be read back, keys take the size of the primary key
+        this.bufferManager.putNode(getNodeFileId(), parseNode(nodeData, node.getNodeNumber(), schema.getPrimaryKey()), true);
+    }
+
+    /**
+     * @return id of the node file in the buffer manager's node cache
+     */
+    private int getNodeFileId() {
+        return BufferManager.nodeFileId(schema.getTableId(), -1);
+    }
+
+    /**
+     * @return buffer manager caching the table's pages and nodes, null if the table is used without one
+     */
+    BufferManager getBufferManager() {
+        return this.bufferManager;
+    }
+
+    /**
+     * Write a cached node to the node file
+     * @param node node to write
+     */
+    void writeNodeToFile(TreeNode node) {
+        try {
+            ByteBuffer nodeData = getPageBuffer();
+            node.serializeNode(nodeData);
+            writeNodeData(node.getNodeNumber(), nodeData);
+        } catch (IOException | IllegalOperationException error) {
+            System.err.println(error.getMessage());
+        }
+    }
+
+    private void writeNodeData(int nodeNumber, ByteBuffer nodeData) throws IOException {
+        long offset = (long) nodeNumber * Catalog.getCatalog().getPageSize();
+        writeFully(getNodeFile().getChannel(), nodeData, offset);
+    }
+
+    /**
+     * Parse a node from a buffer of one page: number of keys | number of indices | is leaf | next node |
+     * parent | keys | indices (page | record)[]
+     */
+    private TreeNode parseNode(ByteBuffer node, int nodeNumber, AttributeSchema primaryKey) {
+        int numberOfKeys = node.getInt(0);
+        int numberOfIndices = node.getInt(4);
+        boolean isLeaf = node.get(8) != 0;
+        TreeNode newNode = new TreeNode(this, nodeNumber, isLeaf);
+        newNode.nextNode = node.getInt(9);
+        newNode.parent = node.getInt(13);
+
+        int position = 17;
+        int attributeSize = primaryKey.getSize();
+        for (int i = 0; i < numberOfKeys; i++) {
+            newNode.addKey(readAttribute(node, position, attributeSize, primaryKey));
+            position += attributeSize;
+        }
+        for (int i = 0; i < numberOfIndices; i++) {
+            newNode.addIndex(new Index(node.getInt(position), node.getInt(position + 4)));
+            position += 8;
+        }
+        return newNode;
+    }
+
+    /**
+     * Get the length of the node file, counting nodes that are only cached
+     * @return length in bytes
+     */
+    private long getNodeFileLength() throws IOException {
+        if (this.nodeFileLength == -1) {
+            this.nodeFileLength = getNodeFile().getChannel().size();
+        }
+        return this.nodeFileLength;
+    }
+
     public int readNumNodes() {
         try {
             String location = schema.getNodeLocation();
             File file = new File(location);
 
-            if (!file.exists()) {
+            if (!file.exists() && this.nodeFileLength <= 0) {
                 return 0;
             }
-            long fileSize = file.length();
+            long fileSize = Math.max(file.length(), this.nodeFileLength);
             int pageSize = Catalog.getCatalog().getPageSize();
             int numPages = (int) Math.ceil((double) fileSize / pageSize);
 
@@ -297,6 +774,26 @@ public class Table {
         }
     }
 
+    /**
+     * Throw away the B+ tree, cached nodes included, leaving an empty node file for a new tree to be built in
+     */
+    public void clearIndex() {
+        if (this.bufferManager != null) {
+            this.bufferManager.discardNodeFile(getNodeFileId());
+        }
+        try {
+            getNodeFile().getChannel().truncate(0);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        this.nodeFileLength = 0;
+        this.numNodes = 0;
+    }
+
+    public int getN() {
+        return N;
+    }
+
     public int getNumNodes() {
         return numNodes;
     }
@@ -324,8 +821,9 @@ public class Table {
         return root.delete(value);
     }
 
+    // point a primary key at a new place, inserting it if the tree does not have it
     public void updateNode(Attribute attribute, Index index) throws IllegalOperationException {
-        deleteNode(attribute.getData());
-        insertNode(attribute, index);
+        TreeNode root = readNode(0);
+        root.updateIndex(attribute, index);
     }
 }
\ No newline at end of file
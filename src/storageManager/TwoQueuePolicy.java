@@ -0,0 +1,76 @@
+/**
+ * 2Q Policy
+ * New pages enter a FIFO queue (A1in). Only pages referenced again after falling out of A1in, which is
+ * remembered by the ghost queue A1out, are promoted to the main LRU queue (Am). One-time scans cycle through
+ * A1in without disturbing Am
+ */
+package storageManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+public class TwoQueuePolicy implements ReplacementPolicy {
+
+    private final int inCapacity;
+    private final int outCapacity;
+    private final LinkedHashSet<Long> in;
+    private final LinkedHashSet<Long> out;
+    private final LinkedHashSet<Long> main;
+
+    public TwoQueuePolicy(int capacity) {
+        this.inCapacity = Math.max(1, capacity / 4);
+        this.outCapacity = Math.max(1, capacity / 2);
+        this.in = new LinkedHashSet<>();
+        this.out = new LinkedHashSet<>();
+        this.main = new LinkedHashSet<>();
+    }
+
+    @Override
+    public void pageAccessed(long key) {
+        // pages in A1in are left in place, correlated references should not promote them
+        if (main.remove(key)) {
+            main.add(key);
+        }
+    }
+
+    @Override
+    public void pageAdded(long key) {
+        if (out.remove(key)) {
+            main.add(key);
+        } else {
+            in.add(key);
+        }
+    }
+
+    @Override
+    public long evict(long incomingKey) {
+        if (in.size() >= inCapacity || main.isEmpty()) {
+            long victim = removeFirst(in);
+            out.add(victim);
+            if (out.size() > outCapacity) {
+                removeFirst(out);
+            }
+            return victim;
+        }
+        return removeFirst(main);
+    }
+
+    @Override
+    public void pageRemoved(long key) {
+        if (!in.remove(key)) {
+            main.remove(key);
+        }
+    }
+
+    private static long removeFirst(LinkedHashSet<Long> queue) {
+        Iterator<Long> first = queue.iterator();
+        long key = first.next();
+        first.remove();
+        return key;
+    }
+
+    @Override
+    public String getName() {
+        return "2Q";
+    }
+}
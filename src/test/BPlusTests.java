@@ -116,6 +116,48 @@ public class BPlusTests {
             testTable.delete();
         }
 
+        evenSplitTest();
+    }
+
+    // a node below the root with an even number of keys has to give its upper half to the new node, keys and
+    // pointers together, or the largest key stays behind on the left
+    private static void evenSplitTest() {
+        try {
+            // the catalog made above has 84 byte pages, which hold 4 double keys, so nodes split with 4 keys
+            Catalog catalog = Catalog.getCatalog();
+            AttributeSchema scoreSchema = new AttributeSchema("score", new AttributeType(AttributeType.TYPE.DOUBLE, -1), 0, true, true, false);
+            TableSchema schema = new TableSchema(1, "scores", new ArrayList<>(Arrays.asList(scoreSchema)));
+            catalog.addTableSchema(schema);
+            Table table = StorageManager.GetStorageManager().ensureTable(schema.getTableId());
+
+            System.out.println("\nTreenodes below the root split evenly with an even number of keys");
+            for (int num = 1; num <= 100; num++) {
+                table.insertNode(new Attribute(scoreSchema, num + 0.5), new Index(num, num));
+            }
+            List<TreeNode> leaves = new ArrayList<>();
+            table.readNode(0).getAllLeaves(leaves);
+            boolean pass = table.getN() % 2 == 0;
+            int expected = 1;
+            for (TreeNode leaf : leaves) {
+                var sk = leaf.getSearchKeys();
+                var index = leaf.getIndices();
+                for (int j = 0; j < sk.size(); j++) {
+                    pass = pass && sk.get(j).getData().equals(expected + 0.5) && index.get(j).recordPointer == expected;
+                    expected++;
+                }
+            }
+            pass = pass && expected == 101;
+            new File("./dbtest/1-index.bin").delete();
+
+            System.out.println(pass ? "Pass" : "Fail");
+            if (!pass) {
+                System.exit(1);
+            }
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            new File("./dbtest/1-index.bin").delete();
+            System.exit(1);
+        }
     }
 
     public static <T> ArrayList<T> removeDuplicates(ArrayList<T> list) {
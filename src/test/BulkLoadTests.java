@@ -0,0 +1,131 @@
+/**
+ * Bulk Load test
+ * Unit tests for loading batches of records and building the index bottom-up
+ */
+package test;
+
+import Exceptions.DuplicateKeyException;
+import catalog.Catalog;
+import storageManager.Attribute;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+public class BulkLoadTests {
+
+    private static final int PAGE_SIZE = 512;
+    private static final int BUFFER_SIZE = 8;
+    private static final String LOCATION = "./bulktest/";
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, true);
+        try {
+            catalog.addTableSchema(TestDatabase.users(0));
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            StorageManager storageManager = StorageManager.GetStorageManager();
+
+            System.out.println("Bulk load should store a shuffled batch in key order");
+            ArrayList<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                keys.add(i * 2);
+            }
+            Collections.shuffle(keys, new Random(421));
+            storageManager.bulkLoad(0, records(keys), 0.8);
+            TestDatabase.check(isTable(storageManager, evens(0, 2000)));
+
+            System.out.println("Bulk load should build an index that finds every record");
+            boolean pass = true;
+            for (int i = 0; i < 4000; i++) {
+                Record record = storageManager.getRecordByPrimaryKey(0, new Attribute(TestDatabase.ID, i));
+                pass = pass && (i % 2 == 0 ? record != null && record.getPrimaryKey().getData().equals(i) : record == null);
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Index built by bulk load should take inserts between its keys");
+            ArrayList<Integer> expected = evens(0, 2000);
+            for (int i = 1; i < 800; i += 2) {
+                storageManager.insertRecord(0, TestDatabase.user(i));
+                expected.add(i);
+            }
+            Collections.sort(expected);
+            for (int key : expected) {
+                pass = pass && storageManager.getRecordByPrimaryKey(0, new Attribute(TestDatabase.ID, key)) != null;
+            }
+            TestDatabase.check(pass && isTable(storageManager, expected));
+
+            System.out.println("Bulk load should append a batch after the table's keys");
+            ArrayList<Integer> appended = new ArrayList<>();
+            for (int i = 5000; i < 5500; i++) {
+                appended.add(i);
+            }
+            Collections.shuffle(appended, new Random(7));
+            storageManager.bulkLoad(0, records(appended), 1.0);
+            Collections.sort(appended);
+            expected.addAll(appended);
+            pass = isTable(storageManager, expected);
+            for (int key : appended) {
+                pass = pass && storageManager.getRecordByPrimaryKey(0, new Attribute(TestDatabase.ID, key)) != null;
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Bulk load should reject a batch with duplicate keys without loading any of it");
+            try {
+                storageManager.bulkLoad(0, records(new ArrayList<>(Arrays.asList(6000, 6001, 6000))), 1.0);
+                pass = false;
+            } catch (DuplicateKeyException e) {
+                pass = true;
+            }
+            TestDatabase.check(pass && isTable(storageManager, expected));
+
+            System.out.println("Turning on indexing should build the index from the table's pages");
+            catalog.setIndexing(false);
+            pass = storageManager.turnOnIndexing();
+            for (int i = 0; i < 6000; i++) {
+                Record record = storageManager.getRecordByPrimaryKey(0, new Attribute(TestDatabase.ID, i));
+                pass = pass && (record != null) == expected.contains(i);
+            }
+            storageManager.insertRecord(0, TestDatabase.user(4001));
+            expected.add(4001);
+            Collections.sort(expected);
+            pass = pass && storageManager.getRecordByPrimaryKey(0, new Attribute(TestDatabase.ID, 4001)) != null;
+            TestDatabase.check(pass && isTable(storageManager, expected));
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    private static ArrayList<Record> records(ArrayList<Integer> keys) {
+        ArrayList<Record> records = new ArrayList<>();
+        for (int key : keys) {
+            records.add(TestDatabase.user(key));
+        }
+        return records;
+    }
+
+    private static ArrayList<Integer> evens(int start, int count) {
+        ArrayList<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(start + i * 2);
+        }
+        return keys;
+    }
+
+    private static boolean isTable(StorageManager storageManager, ArrayList<Integer> keys) throws Exception {
+        ArrayList<Record> records = storageManager.getAllRecords(0);
+        if (records.size() != keys.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!records.get(i).getPrimaryKey().getData().equals(keys.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
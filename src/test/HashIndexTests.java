@@ -0,0 +1,118 @@
+/**
+ * Hash Index test
+ * Unit tests for looking up primary keys through a hash index
+ */
+package test;
+
+import Exceptions.DuplicateKeyException;
+import catalog.Catalog;
+import storageManager.Attribute;
+import storageManager.HashIndex;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class HashIndexTests {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4;
+    private static final String LOCATION = "./hashtest/";
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, false);
+        try {
+            catalog.addTableSchema(TestDatabase.users(0));
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            StorageManager storageManager = StorageManager.GetStorageManager();
+
+            ArrayList<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                keys.add(i * 3);
+            }
+            Collections.shuffle(keys, new Random(421));
+            for (int key : keys.subList(0, 1000)) {
+                storageManager.insertRecord(0, TestDatabase.user(key));
+            }
+
+            System.out.println("Creating a hash index should find the records the table already has");
+            storageManager.createHashIndex(0, "id");
+            TestDatabase.check(findsExactly(storageManager, keys.subList(0, 1000)));
+
+            System.out.println("Hash index should follow records into the pages they split into");
+            for (int key : keys.subList(1000, 3000)) {
+                storageManager.insertRecord(0, TestDatabase.user(key));
+            }
+            TestDatabase.check(findsExactly(storageManager, keys));
+
+            System.out.println("Hash index opened without closing it should find every key after its buckets split");
+            // as after a crash, nothing is flushed or closed before the index is read from its files again
+            HashIndex crashed = new HashIndex(catalog.getTableSchema("users"));
+            boolean pass = crashed.get(1) == null;
+            for (int key : keys) {
+                Integer pageId = crashed.get(key);
+                pass = pass && pageId != null && pageId.equals(storageManager.getIdToTable().get(0).getHashIndex().get(key));
+            }
+            crashed.close();
+            TestDatabase.check(pass);
+
+            System.out.println("Hash index should reject a key the table has");
+            try {
+                storageManager.insertRecord(0, TestDatabase.user(keys.get(1500)));
+                pass = false;
+            } catch (DuplicateKeyException e) {
+                pass = true;
+            }
+            TestDatabase.check(pass && storageManager.getAllRecords(0).size() == keys.size());
+
+            System.out.println("Hash index should not find deleted keys");
+            ArrayList<Integer> remaining = new ArrayList<>(keys);
+            for (int key : keys.subList(0, 1500)) {
+                storageManager.deleteRecord(0, new Attribute(TestDatabase.ID, key));
+            }
+            remaining.subList(0, 1500).clear();
+            TestDatabase.check(findsExactly(storageManager, remaining));
+
+            System.out.println("Hash index should keep its directory when the table is closed");
+            storageManager.shutdown();
+            HashIndex reopened = new HashIndex(catalog.getTableSchema("users"));
+            pass = true;
+            for (int i = 0; i < 9000; i++) {
+                pass = pass && (reopened.get(i) != null) == remaining.contains(i);
+            }
+            reopened.close();
+            TestDatabase.check(pass);
+
+            System.out.println("Only the primary key should take a hash index");
+            try {
+                storageManager.createHashIndex(0, "name");
+                pass = false;
+            } catch (Exception e) {
+                pass = true;
+            }
+            TestDatabase.check(pass);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    // every key in the list is found with its own record, and no key between them is
+    private static boolean findsExactly(StorageManager storageManager, List<Integer> keys) throws Exception {
+        ArrayList<Integer> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted);
+        int max = sorted.get(sorted.size() - 1);
+        for (int i = 0; i <= max + 1; i++) {
+            Record record = storageManager.getRecordByPrimaryKey(0, new Attribute(TestDatabase.ID, i));
+            boolean expected = Collections.binarySearch(sorted, i) >= 0;
+            if (expected != (record != null) || (record != null && !record.getPrimaryKey().getData().equals(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
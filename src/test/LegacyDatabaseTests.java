@@ -0,0 +1,113 @@
+/**
+ * Legacy Database test
+ * Unit tests for opening a database written by the first release, with src/test/legacy holding its files.
+ * The tests run from the repository root, or from anywhere with the legacy directory as the first argument
+ */
+package test;
+
+import catalog.AttributeSchema;
+import catalog.Catalog;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class LegacyDatabaseTests {
+
+    // the location the first release stored in the catalog, tables are found relative to it
+    private static final String LOCATION = "legacytest";
+
+    public static void main(String[] args) {
+        String legacy = args.length > 0 ? args[0] : "./src/test/legacy/";
+        try {
+            TestDatabase.delete(LOCATION);
+            new File(LOCATION).mkdirs();
+            for (String name : new String[]{"catalog.bin", "0.bin", "1.bin"}) {
+                Files.copy(new File(legacy, name).toPath(), new File(LOCATION, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            System.out.println("Catalog written by the first release should load with its tables");
+            Catalog.readBinary(LOCATION + "/catalog.bin");
+            Catalog catalog = Catalog.getCatalog();
+            TableSchema people = catalog.getTableSchema("people");
+            TableSchema teams = catalog.getTableSchema("teams");
+            TestDatabase.check(people != null && teams != null && people.getAttributeSchema().size() == 3
+                    && people.getPrimaryKey().getAttributeName().equals("id") && !catalog.getIndexing());
+
+            System.out.println("Tables written by the first release should read every record in key order");
+            StorageManager.InitStorageManager(catalog.getBufferSize());
+            StorageManager storageManager = StorageManager.GetStorageManager();
+            ArrayList<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                expected.add(i);
+            }
+            boolean pass = isPeople(storageManager, people, expected);
+            ArrayList<Record> teamRecords = storageManager.getAllRecords(teams.getTableId());
+            pass = pass && teamRecords.size() == 5;
+            for (int i = 0; i < teamRecords.size() && pass; i++) {
+                pass = teamRecords.get(i).getAttribute("title").getData().equals("team0" + i);
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Tables written by the first release should take inserts and deletes");
+            for (int i = 100; i > 60; i -= 4) {
+                storageManager.insertRecord(people.getTableId(), person(people, i));
+                expected.add(i);
+            }
+            for (int i = 3; i < 60; i += 7) {
+                storageManager.deleteRecord(people.getTableId(), new Attribute(people.getPrimaryKey(), i));
+                expected.remove(Integer.valueOf(i));
+            }
+            expected.sort(null);
+            TestDatabase.check(isPeople(storageManager, people, expected));
+
+            System.out.println("Changes to a database of the first release should survive reopening it");
+            catalog.writeBinary();
+            storageManager.shutdown();
+            Catalog.readBinary(LOCATION + "/catalog.bin");
+            StorageManager.InitStorageManager(Catalog.getCatalog().getBufferSize());
+            storageManager = StorageManager.GetStorageManager();
+            people = Catalog.getCatalog().getTableSchema("people");
+            pass = isPeople(storageManager, people, expected);
+            for (int key : expected) {
+                Record record = storageManager.getRecordByPrimaryKey(people.getTableId(), new Attribute(people.getPrimaryKey(), key));
+                pass = pass && record != null && record.getAttribute("name").getData().equals("p" + key);
+            }
+            TestDatabase.check(pass && storageManager.getAllRecords(teams.getTableId()).size() == 5);
+            storageManager.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    // a person of the legacy database, named and scored after their id like the ones it was written with
+    private static Record person(TableSchema people, int id) {
+        ArrayList<AttributeSchema> schemas = people.getAttributeSchema();
+        return new Record(new ArrayList<>(Arrays.asList(new Attribute(schemas.get(0), id),
+                new Attribute(schemas.get(1), "p" + id), new Attribute(schemas.get(2), id + 0.5))));
+    }
+
+    private static boolean isPeople(StorageManager storageManager, TableSchema people, ArrayList<Integer> keys) throws Exception {
+        ArrayList<Record> records = storageManager.getAllRecords(people.getTableId());
+        if (records.size() != keys.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            Record record = records.get(i);
+            int key = keys.get(i);
+            if (!record.getAttribute("id").getData().equals(key) || !record.getAttribute("name").getData().equals("p" + key)
+                    || !record.getAttribute("score").getData().equals(key + 0.5)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
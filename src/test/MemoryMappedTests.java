@@ -0,0 +1,128 @@
+/**
+ * Memory Mapped test
+ * Unit tests for reading and writing table pages through memory mapped files, against the same work done through
+ * file reads and writes
+ */
+package test;
+
+import catalog.Catalog;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class MemoryMappedTests {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4;
+    private static final String LOCATION = "./mmaptest/";
+    // table written through file reads and writes, and table written through memory mapped pages
+    private static final int STANDARD = 0;
+    private static final int MAPPED = 1;
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, false);
+        try {
+            TableSchema standard = TestDatabase.users(STANDARD);
+            TableSchema mapped = new TableSchema(MAPPED, "mapped", new ArrayList<>(Arrays.asList(TestDatabase.ID, TestDatabase.NAME)));
+            catalog.addTableSchema(standard);
+            catalog.addTableSchema(mapped);
+
+            System.out.println("Inserts, updates and deletes through memory mapped pages should leave the records file reads do");
+            StorageManager.InitStorageManager(BUFFER_SIZE, "lru", false);
+            TreeMap<Integer, String> expected = runWorkload(StorageManager.GetStorageManager(), STANDARD);
+            boolean pass = isTable(StorageManager.GetStorageManager(), STANDARD, expected);
+            reopen(catalog, true);
+            runWorkload(StorageManager.GetStorageManager(), MAPPED);
+            TestDatabase.check(pass && isTable(StorageManager.GetStorageManager(), MAPPED, expected)
+                    && StorageManager.GetStorageManager().getIdToTable().get(MAPPED).getNumPages() > BUFFER_SIZE);
+
+            System.out.println("Tables written in either mode should read the same after reopening with file reads");
+            reopen(catalog, false);
+            TestDatabase.check(isTable(StorageManager.GetStorageManager(), STANDARD, expected)
+                    && isTable(StorageManager.GetStorageManager(), MAPPED, expected));
+
+            System.out.println("Tables written in either mode should read the same after reopening with memory mapped pages");
+            reopen(catalog, true);
+            TestDatabase.check(isTable(StorageManager.GetStorageManager(), STANDARD, expected)
+                    && isTable(StorageManager.GetStorageManager(), MAPPED, expected));
+
+            System.out.println("Page files written in either mode should be the same");
+            StorageManager.GetStorageManager().shutdown();
+            TestDatabase.check(Arrays.equals(Files.readAllBytes(new File(standard.getPageLocation()).toPath()),
+                    Files.readAllBytes(new File(mapped.getPageLocation()).toPath())));
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    /**
+     * Shut the storage manager down and open the database again
+     * @param memoryMapped whether the new storage manager uses memory mapped pages
+     */
+    private static void reopen(Catalog catalog, boolean memoryMapped) throws Exception {
+        catalog.writeBinary();
+        StorageManager.GetStorageManager().shutdown();
+        Catalog.readBinary(LOCATION + "catalog.bin");
+        StorageManager.InitStorageManager(BUFFER_SIZE, "lru", memoryMapped);
+    }
+
+    /**
+     * Insert, update and delete records of a table, the same ones every time
+     * @return names of the records the table should have by id
+     */
+    private static TreeMap<Integer, String> runWorkload(StorageManager storageManager, int tableId) throws Exception {
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        ArrayList<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(421));
+        for (int key : keys) {
+            storageManager.insertRecord(tableId, TestDatabase.user(key));
+            expected.put(key, String.format("n%07d", key));
+        }
+        for (int i = 0; i < keys.size(); i += 3) {
+            storageManager.deleteRecord(tableId, new Attribute(TestDatabase.ID, keys.get(i)));
+            expected.remove(keys.get(i));
+        }
+        for (int i = 1; i < keys.size(); i += 4) {
+            int key = keys.get(i);
+            if (expected.containsKey(key)) {
+                String name = String.format("u%07d", key);
+                storageManager.updateRecord(tableId, new Record(new ArrayList<>(Arrays.asList(
+                        new Attribute(TestDatabase.ID, key), new Attribute(TestDatabase.NAME, name)))));
+                expected.put(key, name);
+            }
+        }
+        return expected;
+    }
+
+    // the table's records are the expected ids in order, with their names
+    private static boolean isTable(StorageManager storageManager, int tableId, TreeMap<Integer, String> expected) throws Exception {
+        ArrayList<Record> records = storageManager.getAllRecords(tableId);
+        if (records.size() != expected.size()) {
+            return false;
+        }
+        int i = 0;
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            Record record = records.get(i++);
+            if (!record.getAttribute("id").getData().equals(entry.getKey())
+                    || !record.getAttribute("name").getData().equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
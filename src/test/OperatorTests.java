@@ -0,0 +1,157 @@
+/**
+ * Operator test
+ * Unit tests for pulling records through trees of query operators
+ */
+package test;
+
+import WhereParser.JoinPlanner;
+import WhereParser.Nodes.BoolOpNode;
+import WhereParser.TokenParser.Parser;
+import catalog.AttributeSchema;
+import catalog.AttributeType;
+import catalog.Catalog;
+import catalog.TableSchema;
+import queryExecutor.Filter;
+import queryExecutor.HashJoin;
+import queryExecutor.Operator;
+import queryExecutor.Project;
+import queryExecutor.Sort;
+import queryExecutor.TableScan;
+import storageManager.Attribute;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+
+public class OperatorTests {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4;
+    private static final String LOCATION = "./operatortest/";
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, false);
+        try {
+            AttributeType integer = new AttributeType("integer");
+            AttributeSchema idSchema = new AttributeSchema("id", integer, 0, true, true, false);
+            AttributeSchema teamSchema = new AttributeSchema("team", integer, 1, false, false, true);
+            AttributeSchema tidSchema = new AttributeSchema("tid", integer, 0, true, true, false);
+            TableSchema employees = new TableSchema(0, "employees", new ArrayList<>(Arrays.asList(idSchema, teamSchema)));
+            TableSchema teams = new TableSchema(1, "teams", new ArrayList<>(Arrays.asList(tidSchema)));
+            catalog.addTableSchema(employees);
+            catalog.addTableSchema(teams);
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            StorageManager storageManager = StorageManager.GetStorageManager();
+            for (int i = 0; i < 500; i++) {
+                storageManager.insertRecord(0, new Record(new ArrayList<>(Arrays.asList(
+                        new Attribute(idSchema, i), new Attribute(teamSchema, i % 7)))));
+            }
+            for (int i = 0; i < 5; i++) {
+                storageManager.insertRecord(1, new Record(new ArrayList<>(Arrays.asList(new Attribute(tidSchema, i)))));
+            }
+
+            System.out.println("Scan should read every record across more pages than the buffer holds");
+            ArrayList<Record> records = pull(new TableScan(storageManager, employees, "employees", null, null));
+            boolean pass = records.size() == 500 && storageManager.getIdToTable().get(0).getNumPages() > BUFFER_SIZE;
+            for (int i = 0; i < records.size() && pass; i++) {
+                pass = records.get(i).getAttribute("employees.id").getData().equals(i);
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Scan should read only the records the planner finds for the primary key");
+            BoolOpNode point = Parser.parseWhere("id = 42 or id = 420");
+            records = pull(new TableScan(storageManager, employees, "employees", point, null));
+            TestDatabase.check(records.size() == 2 && records.get(1).getAttribute("employees.id").getData().equals(420));
+
+            System.out.println("Join should combine filtered records on their join predicates");
+            ArrayList<TableSchema> schemas = new ArrayList<>(Arrays.asList(employees, teams));
+            JoinPlanner planner = new JoinPlanner(schemas, Parser.parseWhere("team = tid and employees.id < 100"));
+            Operator left = new Filter(new TableScan(storageManager, employees, "employees", planner.getFilter(0), null), planner.getFilter(0));
+            records = pull(new HashJoin(left, new TableScan(storageManager, teams, "teams", null, null), planner.getJoinPredicates(1)));
+            pass = records.size() == 72;
+            for (Record record : records) {
+                pass = pass && record.getAttribute("employees.team").getData().equals(record.getAttribute("teams.tid").getData());
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Join without predicates should be a cross product");
+            records = pull(new HashJoin(new TableScan(storageManager, teams, "teams", null, null),
+                    new TableScan(storageManager, teams, "teams2", null, null), new ArrayList<>()));
+            TestDatabase.check(records.size() == 25);
+
+            System.out.println("Sort and project should order the records and keep only the selected attributes");
+            Operator sorted = new Sort(new TableScan(storageManager, employees, "employees", Parser.parseWhere("id < 20"), null),
+                    (record1, record2) -> record2.getAttribute("employees.id").compareTo(record1.getAttribute("employees.id")),
+                    BUFFER_SIZE);
+            records = pull(new Project(sorted, new ArrayList<>(Arrays.asList("employees.id"))));
+            TestDatabase.check(records.size() == 20 && records.get(0).getAttribute("employees.id").getData().equals(19)
+                    && records.get(0).getAttribute("employees.team") == null);
+
+            System.out.println("Sort larger than its memory should merge runs from files and keep equal records in order");
+            Operator external = new Sort(new TableScan(storageManager, employees, "employees", null, null),
+                    (record1, record2) -> record1.getAttribute("employees.team").compareTo(record2.getAttribute("employees.team")), 3);
+            records = pull(external);
+            pass = records.size() == 500;
+            for (int i = 1; i < records.size() && pass; i++) {
+                int team1 = (Integer) records.get(i - 1).getAttribute("employees.team").getData();
+                int team2 = (Integer) records.get(i).getAttribute("employees.team").getData();
+                int id1 = (Integer) records.get(i - 1).getAttribute("employees.id").getData();
+                int id2 = (Integer) records.get(i).getAttribute("employees.id").getData();
+                pass = team1 < team2 || (team1 == team2 && id1 < id2);
+            }
+            File[] runFiles = new File(LOCATION).listFiles((directory, name) -> name.startsWith("sort-"));
+            TestDatabase.check(pass && runFiles.length == 0);
+
+            System.out.println("Sort failing part way through merging runs should still delete its run files on close");
+            int[] comparisons = new int[1];
+            Comparator<Record> byTeam = (record1, record2) -> {
+                comparisons[0]++;
+                return record1.getAttribute("employees.team").compareTo(record2.getAttribute("employees.team"));
+            };
+            Operator counted = new Sort(new TableScan(storageManager, employees, "employees", null, null), byTeam, 3);
+            counted.open();
+            counted.close();
+            // open ends with merging runs, so this many comparisons in it is inside the last merge
+            int failAt = comparisons[0] - 50;
+            comparisons[0] = 0;
+            Operator failing = new Sort(new TableScan(storageManager, employees, "employees", null, null), (record1, record2) -> {
+                if (comparisons[0] == failAt) {
+                    throw new IllegalStateException("Comparison failed");
+                }
+                return byTeam.compare(record1, record2);
+            }, 3);
+            pass = false;
+            try {
+                failing.open();
+            } catch (IllegalStateException e) {
+                pass = true;
+            }
+            failing.close();
+            runFiles = new File(LOCATION).listFiles((directory, name) -> name.startsWith("sort-"));
+            TestDatabase.check(pass && runFiles.length == 0);
+
+            System.out.println("Scan should keep only the attributes the query uses");
+            records = pull(new TableScan(storageManager, employees, "employees", null, new HashSet<>(Arrays.asList("employees.team"))));
+            TestDatabase.check(records.size() == 500 && records.get(9).getAttribute("employees.team").getData().equals(2)
+                    && records.get(9).getAttribute("employees.id") == null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    private static ArrayList<Record> pull(Operator operator) throws Exception {
+        ArrayList<Record> records = new ArrayList<>();
+        operator.open();
+        for (Record record = operator.next(); record != null; record = operator.next()) {
+            records.add(record);
+        }
+        operator.close();
+        return records;
+    }
+}
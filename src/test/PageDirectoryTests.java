@@ -0,0 +1,183 @@
+/**
+ * Page Directory test
+ * Unit tests for the order of a table's pages and where they are in the page file
+ */
+package test;
+
+import catalog.Catalog;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.Page;
+import storageManager.Record;
+import storageManager.StorageManager;
+import storageManager.Table;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+public class PageDirectoryTests {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4;
+    private static final String LOCATION = "./pagetest/";
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, false);
+        try {
+            TableSchema users = TestDatabase.users(0);
+            catalog.addTableSchema(users);
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            StorageManager storageManager = StorageManager.GetStorageManager();
+            ArrayList<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                keys.add(i * 2);
+            }
+            Collections.shuffle(keys, new Random(421));
+            for (int key : keys) {
+                storageManager.insertRecord(0, TestDatabase.user(key));
+            }
+            Collections.sort(keys);
+
+            System.out.println("Page directory should keep the order of the pages when the table is reopened");
+            ArrayList<Integer> pageIds = getPageIds(storageManager.getIdToTable().get(0));
+            catalog.writeBinary();
+            storageManager.shutdown();
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            storageManager = StorageManager.GetStorageManager();
+            Table table = storageManager.getIdToTable().get(0);
+            TestDatabase.check(getPageIds(table).equals(pageIds) && isTable(storageManager, keys));
+
+            System.out.println("Pages should hold ranges of keys in the order of the directory");
+            boolean pass = true;
+            Object previous = null;
+            for (int i = 0; i < table.getNumPages(); i++) {
+                Page page = storageManager.getPage(0, i);
+                for (Record record : page.getRecords()) {
+                    Object key = record.getPrimaryKeyValue();
+                    pass = pass && (previous == null || (Integer) previous < (Integer) key)
+                            && table.findPage(key) == page.getPageId();
+                    previous = key;
+                }
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Record between two pages should go on the first unless only the second has room");
+            Record smallest = TestDatabase.user(-1);
+            Record largest = TestDatabase.user(1000000);
+            pass = table.findInsertPage(smallest) == table.getPageId(0)
+                    && table.findInsertPage(largest) == table.getPageId(table.getNumPages() - 1);
+            for (int i = 0; i + 1 < table.getNumPages(); i++) {
+                Page page = storageManager.getPage(0, i);
+                Page next = storageManager.getPage(0, i + 1);
+                ArrayList<Record> records = page.getRecords();
+                // keys are even, an odd key is between the pages
+                Record between = TestDatabase.user((Integer) records.get(records.size() - 1).getPrimaryKeyValue() + 1);
+                int expected = !page.canInsertRecord(between) && next.canInsertRecord(between) ? next.getPageId() : page.getPageId();
+                pass = pass && table.findInsertPage(between) == expected;
+            }
+            TestDatabase.check(pass);
+
+            System.out.println("Page removed from the middle of the table should give its slot to the next new page");
+            storageManager.flushBuffer();
+            File pageFile = new File(users.getPageLocation());
+            long length = pageFile.length();
+            int position = table.getNumPages() / 2;
+            int freed = table.getPageId(position);
+            for (Record record : new ArrayList<>(storageManager.getPage(0, position).getRecords())) {
+                storageManager.deleteRecord(0, record.getPrimaryKey());
+                keys.remove(record.getPrimaryKeyValue());
+            }
+            pass = freed < length / PAGE_SIZE - 1 && table.getPagePosition(freed) == -1;
+            int numPages = table.getNumPages();
+            for (int key = 2001; table.getNumPages() == numPages; key += 2) {
+                storageManager.insertRecord(0, TestDatabase.user(key));
+                keys.add(key);
+            }
+            storageManager.flushBuffer();
+            TestDatabase.check(pass && table.getPagePosition(freed) != -1 && pageFile.length() == length
+                    && isTable(storageManager, keys));
+
+            System.out.println("Page removed from the end of the page file should shrink the file");
+            int last = (int) (length / PAGE_SIZE) - 1;
+            for (Record record : new ArrayList<>(storageManager.getPage(0, table.getPagePosition(last)).getRecords())) {
+                storageManager.deleteRecord(0, record.getPrimaryKey());
+                keys.remove(record.getPrimaryKeyValue());
+            }
+            storageManager.flushBuffer();
+            TestDatabase.check(table.getPagePosition(last) == -1 && pageFile.length() < length
+                    && isTable(storageManager, keys));
+
+            System.out.println("Page directory left open by a crash should be rebuilt from the pages");
+            storageManager.flushBuffer();
+            // pages split and empty after the directory was written, and reach the page file without it
+            for (int i = 1; i < 400; i += 2) {
+                storageManager.insertRecord(0, TestDatabase.user(i));
+                keys.add(i);
+            }
+            for (int i = 600; i < 800; i++) {
+                if (storageManager.deleteRecord(0, new Attribute(TestDatabase.ID, i)) != null) {
+                    keys.remove(Integer.valueOf(i));
+                }
+            }
+            Collections.sort(keys);
+            for (int i = 0; i < table.getNumPages(); i++) {
+                table.writePage(storageManager.getPage(0, i));
+            }
+            TestDatabase.check(isTable(new Table(users.clone(), false, null), keys));
+
+            System.out.println("Page directory written in an older format should be rebuilt from the pages");
+            storageManager.flushBuffer();
+            // the first format started with the page slots and listed the page ids
+            try (DataOutputStream directory = new DataOutputStream(new FileOutputStream(users.getDirectoryLocation()))) {
+                directory.writeInt(table.getNumPages());
+                directory.writeInt(table.getNumPages());
+                for (int i = table.getNumPages() - 1; i >= 0; i--) {
+                    directory.writeInt(i);
+                }
+            }
+            TestDatabase.check(isTable(new Table(users.clone(), false, null), keys));
+            storageManager.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    private static ArrayList<Integer> getPageIds(Table table) {
+        ArrayList<Integer> pageIds = new ArrayList<>();
+        for (int i = 0; i < table.getNumPages(); i++) {
+            pageIds.add(table.getPageId(i));
+        }
+        return pageIds;
+    }
+
+    // the table's records are the keys in order, reading its pages from the page file in the order of its directory
+    private static boolean isTable(Table table, ArrayList<Integer> keys) {
+        ArrayList<Integer> found = new ArrayList<>();
+        for (int i = 0; i < table.getNumPages(); i++) {
+            Page page = table.readPage(table.getPageId(i));
+            if (page == null) {
+                return false;
+            }
+            for (Record record : page.getRecords()) {
+                found.add((Integer) record.getPrimaryKeyValue());
+            }
+        }
+        table.close();
+        return found.equals(keys);
+    }
+
+    // the records the storage manager reads are the keys in order
+    private static boolean isTable(StorageManager storageManager, ArrayList<Integer> keys) throws Exception {
+        ArrayList<Integer> found = new ArrayList<>();
+        for (Record record : storageManager.getAllRecords(0)) {
+            found.add((Integer) record.getPrimaryKeyValue());
+        }
+        return found.equals(keys);
+    }
+}
@@ -6,12 +6,16 @@
 package test;
 
 import WhereParser.Nodes.BoolOpNode;
+import WhereParser.JoinPlanner;
+import WhereParser.QueryPlanner;
 import WhereParser.TokenParser.Parser;
 import Exceptions.IllegalOperationException;
 import Exceptions.SyntaxErrorException;
 import catalog.AttributeSchema;
 import catalog.AttributeType;
+import catalog.TableSchema;
 import storageManager.Attribute;
+import storageManager.KeyRange;
 import storageManager.Record;
 
 import java.util.ArrayList;
@@ -41,6 +45,35 @@ public class ParserTests {
             testInput("id = 0 and salary > (1 / 0.0) or id = 1", testRecord, false);
             testInput("dot = \'hi\'", testRecord, false);
 
+            QueryPlanner planner = new QueryPlanner(new TableSchema(0, "employees",
+                    new ArrayList<>(Arrays.asList(idSchema, nameSchema, salarySchema))));
+            testPlan(planner, "id = 5 or 2 = id or id = 5", QueryPlanner.Access.POINT, "[[2, 2], [5, 5]]");
+            testPlan(planner, "id > 3 and id <= 10 or id = 12", QueryPlanner.Access.RANGE, "[(3, 10], [12, 12]]");
+            testPlan(planner, "id < 3 or id >= 3 and name = \"dot\"", QueryPlanner.Access.FULL_SCAN, "[(, )]");
+            testPlan(planner, "id > 5 and id < 3 or id = 1 and id = 2", QueryPlanner.Access.NONE, "[]");
+
+            TableSchema indexedSchema = new TableSchema(1, "indexed",
+                    new ArrayList<>(Arrays.asList(idSchema, nameSchema, salarySchema)));
+            indexedSchema.addIndex(nameSchema);
+            QueryPlanner indexPlanner = new QueryPlanner(indexedSchema);
+            testAccess(indexPlanner, "name = \"dot\" or name = \"hi\"", QueryPlanner.Access.INDEX);
+            testAccess(indexPlanner, "id = 2 and name = \"dot\"", QueryPlanner.Access.POINT);
+            testAccess(indexPlanner, "name = \"dot\" or salary > 2.0", QueryPlanner.Access.FULL_SCAN);
+
+            AttributeSchema teamIdSchema = new AttributeSchema("tid", idType, 0, true, true, false);
+            AttributeSchema leadSchema = new AttributeSchema("lead", idType, 1, false, false, true);
+            AttributeSchema budgetSchema = new AttributeSchema("budget", salaryType, 2, false, false, true);
+            ArrayList<TableSchema> joinSchemas = new ArrayList<>(Arrays.asList(
+                    new TableSchema(0, "employees", new ArrayList<>(Arrays.asList(idSchema, nameSchema, salarySchema))),
+                    new TableSchema(1, "teams", new ArrayList<>(Arrays.asList(teamIdSchema, leadSchema, budgetSchema)))));
+            testJoin(joinSchemas, "lead = employees.id and budget > salary", "[employees.id = teams.lead]", true);
+            testJoin(joinSchemas, "employees.id = tid and teams.lead = employees.id", "[employees.id = teams.tid, employees.id = teams.lead]", false);
+            testJoin(joinSchemas, "id = tid or lead = id", "[]", true);
+            testJoin(joinSchemas, "salary = budget and salary = lead", "[employees.salary = teams.budget]", true);
+            testFilter(joinSchemas, "salary > 2.0 and budget < 9.0 and lead = employees.id", true, true, false);
+            testFilter(joinSchemas, "(name = \"dot\" or salary > 2.0) and budget > salary", true, false, true);
+            testFilter(joinSchemas, "name = \"dot\" and tid = 3 or budget > 1.0", false, false, true);
+
 
 
         }catch (Exception e) {
@@ -48,6 +81,52 @@ public class ParserTests {
         }
     }
 
+    private static void testPlan(QueryPlanner planner, String input, QueryPlanner.Access access, String ranges) throws SyntaxErrorException {
+        System.out.println("Planning: " + input + " should be " + access + " over " + ranges);
+        ArrayList<KeyRange> keyRanges = planner.getKeyRanges(Parser.parseWhere(input));
+        boolean pass = QueryPlanner.getAccess(keyRanges) == access && keyRanges.toString().equals(ranges);
+        System.out.println(pass ? "Pass" : "Fail");
+        if (!pass) {
+            System.exit(1);
+        }
+    }
+
+    private static void testAccess(QueryPlanner planner, String input, QueryPlanner.Access access) throws SyntaxErrorException {
+        System.out.println("Planning: " + input + " should be " + access);
+        boolean pass = planner.getAccess(Parser.parseWhere(input)) == access;
+        System.out.println(pass ? "Pass" : "Fail");
+        if (!pass) {
+            System.exit(1);
+        }
+    }
+
+    private static void testJoin(ArrayList<TableSchema> schemas, String input, String predicates, boolean residual) throws SyntaxErrorException {
+        System.out.println("Joining on: " + input + " should use " + predicates + (residual ? " and check the rest" : ""));
+        JoinPlanner planner = new JoinPlanner(schemas, Parser.parseWhere(input));
+        ArrayList<String> found = new ArrayList<>();
+        for (JoinPlanner.JoinPredicate predicate : planner.getJoinPredicates(1)) {
+            found.add(predicate.leftName + " = " + predicate.rightName);
+        }
+        boolean pass = planner.getJoinPredicates(0).isEmpty() && found.toString().equals(predicates)
+                && (planner.getResidual() != null) == residual;
+        System.out.println(pass ? "Pass" : "Fail");
+        if (!pass) {
+            System.exit(1);
+        }
+    }
+
+    private static void testFilter(ArrayList<TableSchema> schemas, String input, boolean first, boolean second, boolean residual) throws SyntaxErrorException {
+        System.out.println("Filtering on: " + input + " should filter " + (first ? "the first table " : "") +
+                (second ? "the second table " : "") + (residual ? "and check the rest" : "and check nothing else"));
+        JoinPlanner planner = new JoinPlanner(schemas, Parser.parseWhere(input));
+        boolean pass = (planner.getFilter(0) != null) == first && (planner.getFilter(1) != null) == second
+                && (planner.getResidual() != null) == residual;
+        System.out.println(pass ? "Pass" : "Fail");
+        if (!pass) {
+            System.exit(1);
+        }
+    }
+
     private static void testInput(String input, Record testRecord, boolean result) throws IllegalOperationException, SyntaxErrorException {
         System.out.println("Testing: " + input + " should " + (result ? "PASS" : "FAIL"));
         BoolOpNode head = Parser.parseWhere(input);
@@ -0,0 +1,111 @@
+/**
+ * Range Scan test
+ * Unit tests for reading the records of a primary key range, through the page directory and then through the
+ * leaf chain of the B+ tree
+ */
+package test;
+
+import catalog.Catalog;
+import storageManager.KeyRange;
+import storageManager.Record;
+import storageManager.StorageManager;
+import storageManager.Table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+public class RangeScanTests {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4;
+    private static final String LOCATION = "./rangetest/";
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, false);
+        try {
+            catalog.addTableSchema(TestDatabase.users(0));
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            StorageManager storageManager = StorageManager.GetStorageManager();
+            ArrayList<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                keys.add(i * 4);
+            }
+            Collections.shuffle(keys, new Random(421));
+            for (int key : keys) {
+                storageManager.insertRecord(0, TestDatabase.user(key));
+            }
+            Collections.sort(keys);
+            Table table = storageManager.getIdToTable().get(0);
+
+            System.out.println("Ranges without indexing should be found through the page directory");
+            TestDatabase.check(!catalog.getIndexing() && table.getNumPages() > BUFFER_SIZE);
+            checkRanges(storageManager, keys);
+
+            System.out.println("Ranges with indexing should be found through the leaf chain of the B+ tree");
+            storageManager.turnOnIndexing();
+            // keys inserted into the tree after it was built, between the keys it was built with
+            for (int i = 0; i < 500; i += 3) {
+                storageManager.insertRecord(0, TestDatabase.user(i * 4 + 2));
+                keys.add(i * 4 + 2);
+            }
+            Collections.sort(keys);
+            TestDatabase.check(catalog.getIndexing() && !table.readNode(0).isLeaf);
+            checkRanges(storageManager, keys);
+            storageManager.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    private static void checkRanges(StorageManager storageManager, ArrayList<Integer> keys) throws Exception {
+        System.out.println("Range with inclusive bounds should include the records at both ends");
+        ArrayList<Integer> found = getRange(storageManager, new KeyRange(100, true, 300, true));
+        TestDatabase.check(isRange(storageManager, keys, new KeyRange(100, true, 300, true))
+                && found.get(0) == 100 && found.get(found.size() - 1) == 300
+                && getRange(storageManager, KeyRange.of(1000)).equals(Collections.singletonList(1000)));
+
+        System.out.println("Range with exclusive bounds should leave out the records at both ends");
+        found = getRange(storageManager, new KeyRange(100, false, 300, false));
+        TestDatabase.check(isRange(storageManager, keys, new KeyRange(100, false, 300, false))
+                && !found.contains(100) && !found.contains(300)
+                && isRange(storageManager, keys, new KeyRange(100, false, null, false))
+                && isRange(storageManager, keys, new KeyRange(null, false, 300, false)));
+
+        System.out.println("Range with bounds between keys should start and end at the keys inside it");
+        TestDatabase.check(isRange(storageManager, keys, new KeyRange(101, true, 299, true))
+                && isRange(storageManager, keys, new KeyRange(-50, false, 1, true)));
+
+        System.out.println("Empty ranges, and ranges without keys in them, should find no records");
+        TestDatabase.check(getRange(storageManager, new KeyRange(300, true, 100, true)).isEmpty()
+                && getRange(storageManager, new KeyRange(100, true, 100, false)).isEmpty()
+                && getRange(storageManager, KeyRange.of(101)).isEmpty()
+                && getRange(storageManager, new KeyRange(-100, true, -1, true)).isEmpty()
+                && getRange(storageManager, new KeyRange(1996, false, 5000, true)).isEmpty());
+
+        System.out.println("Range across many pages should find every record in key order");
+        TestDatabase.check(isRange(storageManager, keys, new KeyRange(0, true, 1996, true))
+                && isRange(storageManager, keys, new KeyRange(3, true, 1995, false)));
+    }
+
+    private static ArrayList<Integer> getRange(StorageManager storageManager, KeyRange range) throws Exception {
+        ArrayList<Integer> found = new ArrayList<>();
+        for (Record record : storageManager.getRecordsInRange(0, range)) {
+            found.add((Integer) record.getPrimaryKeyValue());
+        }
+        return found;
+    }
+
+    // the records found are the keys the range holds, in order
+    private static boolean isRange(StorageManager storageManager, ArrayList<Integer> keys, KeyRange range) throws Exception {
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int key : keys) {
+            if (range.contains(key)) {
+                expected.add(key);
+            }
+        }
+        return !expected.isEmpty() && getRange(storageManager, range).equals(expected);
+    }
+}
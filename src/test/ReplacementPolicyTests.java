@@ -0,0 +1,91 @@
+/**
+ * Replacement Policy test
+ * Unit tests for the buffer replacement policies
+ */
+package test;
+
+import storageManager.ReplacementPolicy;
+
+import java.util.HashSet;
+import java.util.Random;
+
+public class ReplacementPolicyTests {
+
+    private static final int CAPACITY = 8;
+
+    public static void main(String[] args) {
+        try {
+            String[] policies = {"lru", "clock", "lru-k", "2q", "arc"};
+
+            for (String name : policies) {
+                System.out.println(name + " should only evict buffered pages");
+                ReplacementPolicy policy = ReplacementPolicy.create(name, CAPACITY);
+                HashSet<Long> buffer = new HashSet<>();
+                Random random = new Random(421);
+                boolean pass = true;
+                for (int i = 0; i < 10000; i++) {
+                    long key = random.nextInt(40);
+                    pass = pass && request(policy, buffer, key);
+                }
+                pass = pass && buffer.size() == CAPACITY;
+                TestDatabase.check(pass);
+            }
+
+            String[] scanResistant = {"lru-k", "2q", "arc"};
+            for (String name : scanResistant) {
+                System.out.println(name + " should keep a hot working set through a sequential scan");
+                ReplacementPolicy policy = ReplacementPolicy.create(name, CAPACITY);
+                HashSet<Long> buffer = new HashSet<>();
+                for (int round = 0; round < 5; round++) {
+                    // hot pages are referenced twice per round
+                    for (int pass = 0; pass < 2; pass++) {
+                        for (long key = 0; key < 3; key++) {
+                            request(policy, buffer, key);
+                        }
+                    }
+                    // pages read once in between, enough to push the hot pages out of any FIFO queue
+                    for (long key = 100 + round * CAPACITY; key < 100 + (round + 1) * CAPACITY; key++) {
+                        request(policy, buffer, key);
+                    }
+                }
+                for (long key = 1000; key < 1000 + 10 * CAPACITY; key++) {
+                    request(policy, buffer, key);
+                }
+                TestDatabase.check(buffer.contains(0L) && buffer.contains(1L) && buffer.contains(2L));
+            }
+
+            System.out.println("lru should lose the hot working set to a sequential scan");
+            ReplacementPolicy lru = ReplacementPolicy.create("lru", CAPACITY);
+            HashSet<Long> buffer = new HashSet<>();
+            for (long key = 0; key < 3; key++) {
+                request(lru, buffer, key);
+            }
+            for (long key = 1000; key < 1000 + CAPACITY; key++) {
+                request(lru, buffer, key);
+            }
+            TestDatabase.check(!buffer.contains(0L) && !buffer.contains(1L) && !buffer.contains(2L));
+
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Simulate the buffer manager requesting a page
+     * @return false if the policy chose a victim that was not buffered
+     */
+    private static boolean request(ReplacementPolicy policy, HashSet<Long> buffer, long key) {
+        if (buffer.contains(key)) {
+            policy.pageAccessed(key);
+            return true;
+        }
+        boolean valid = true;
+        if (buffer.size() == CAPACITY) {
+            valid = buffer.remove(policy.evict(key));
+        }
+        buffer.add(key);
+        policy.pageAdded(key);
+        return valid;
+    }
+}
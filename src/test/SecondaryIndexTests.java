@@ -0,0 +1,147 @@
+/**
+ * Secondary Index test
+ * Unit tests for keeping a secondary index in step with its table and finding records through it
+ */
+package test;
+
+import DDLParser.DDLParser;
+import Exceptions.IllegalOperationException;
+import catalog.AttributeSchema;
+import catalog.AttributeType;
+import catalog.Catalog;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.KeyRange;
+import storageManager.Record;
+import storageManager.StorageManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class SecondaryIndexTests {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4;
+    private static final int TEAMS = 7;
+    private static final String LOCATION = "./secondarytest/";
+    private static final AttributeSchema TEAM = new AttributeSchema("team", new AttributeType(AttributeType.TYPE.INT), 2, false, false, true);
+
+    public static void main(String[] args) {
+        Catalog catalog = TestDatabase.create(LOCATION, PAGE_SIZE, BUFFER_SIZE, false);
+        try {
+            TableSchema users = new TableSchema(0, "users", new ArrayList<>(Arrays.asList(TestDatabase.ID, TestDatabase.NAME, TEAM)));
+            catalog.addTableSchema(users);
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            StorageManager storageManager = StorageManager.GetStorageManager();
+            // id to team of the records the table should have
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < 300; i++) {
+                storageManager.insertRecord(0, user(i, i % TEAMS));
+                expected.put(i, i % TEAMS);
+            }
+
+            System.out.println("Index created on a table should find every record with a value");
+            storageManager.createIndex(0, "team");
+            File indexFile = new File(users.getIndexLocation(TEAM));
+            TestDatabase.check(isIndexed(storageManager, expected));
+
+            System.out.println("Index should take the records inserted after it was created");
+            for (int i = 300; i < 500; i++) {
+                storageManager.insertRecord(0, user(i, (i * 3) % TEAMS));
+                expected.put(i, (i * 3) % TEAMS);
+            }
+            TestDatabase.check(isIndexed(storageManager, expected));
+
+            System.out.println("Index should drop deleted records and move updated ones to their new value");
+            for (int i = 0; i < 500; i += 3) {
+                storageManager.deleteRecord(0, new Attribute(TestDatabase.ID, i));
+                expected.remove(i);
+            }
+            for (int i = 1; i < 500; i += 5) {
+                if (expected.containsKey(i)) {
+                    storageManager.updateRecord(0, user(i, TEAMS - 1 - expected.get(i)));
+                    expected.put(i, TEAMS - 1 - expected.get(i));
+                }
+            }
+            TestDatabase.check(isIndexed(storageManager, expected));
+
+            System.out.println("Index should take the records of a bulk load");
+            ArrayList<Record> batch = new ArrayList<>();
+            for (int i = 999; i >= 500; i--) {
+                batch.add(user(i, i % 2));
+                expected.put(i, i % 2);
+            }
+            storageManager.bulkLoad(0, batch, 0.8);
+            TestDatabase.check(isIndexed(storageManager, expected));
+
+            System.out.println("Index should find the same records after the database is reopened");
+            catalog.writeBinary();
+            storageManager.shutdown();
+            Catalog.readBinary(LOCATION + "catalog.bin");
+            StorageManager.InitStorageManager(BUFFER_SIZE);
+            storageManager = StorageManager.GetStorageManager();
+            // more nodes than the buffer holds, so they left the node cache for the file
+            TestDatabase.check(indexFile.length() > (long) BUFFER_SIZE * PAGE_SIZE && isIndexed(storageManager, expected));
+
+            System.out.println("Dropped index should delete its file and no longer find records");
+            storageManager.dropIndex(0, "team");
+            boolean pass = !indexFile.exists();
+            try {
+                storageManager.getRecordsByIndex(0, TEAM.getAttributeId(), KeyRange.of(1));
+                pass = false;
+            } catch (IllegalOperationException e) {
+                // expected, the attribute has no index
+            }
+            storageManager.createIndex(0, "team");
+            TestDatabase.check(pass && isIndexed(storageManager, expected));
+
+            System.out.println("Dropping an indexed attribute from the table should drop its index");
+            new DDLParser().alterTable(Catalog.getCatalog(), "users", "drop team");
+            users = Catalog.getCatalog().getTableSchema(0);
+            TestDatabase.check(!indexFile.exists() && users.getAttributeSchema("team") == null
+                    && users.getIndexedAttributes().isEmpty() && storageManager.getAllRecords(0).size() == expected.size());
+            storageManager.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        TestDatabase.delete(LOCATION);
+    }
+
+    private static Record user(int id, int team) {
+        ArrayList<Attribute> attributes = TestDatabase.user(id).getAttributes();
+        attributes.add(new Attribute(TEAM, team));
+        return new Record(attributes);
+    }
+
+    // every team, and a range of teams, finds the ids the table should have for it in primary key order
+    private static boolean isIndexed(StorageManager storageManager, TreeMap<Integer, Integer> expected) throws Exception {
+        for (int team = 0; team < TEAMS; team++) {
+            if (!isFound(storageManager, expected, KeyRange.of(team))) {
+                return false;
+            }
+        }
+        return isFound(storageManager, expected, new KeyRange(2, false, 5, true))
+                && isFound(storageManager, expected, new KeyRange(TEAMS, true, null, false));
+    }
+
+    private static boolean isFound(StorageManager storageManager, TreeMap<Integer, Integer> expected, KeyRange range) throws Exception {
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            if (range.contains(entry.getValue())) {
+                ids.add(entry.getKey());
+            }
+        }
+        ArrayList<Integer> found = new ArrayList<>();
+        for (Record record : storageManager.getRecordsByIndex(0, TEAM.getAttributeId(), range)) {
+            if (!record.getAttribute(TEAM.getAttributeId()).getData().equals(expected.get((Integer) record.getPrimaryKeyValue()))) {
+                return false;
+            }
+            found.add((Integer) record.getPrimaryKeyValue());
+        }
+        return found.equals(ids);
+    }
+}
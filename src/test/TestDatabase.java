@@ -0,0 +1,82 @@
+/**
+ * Test Database
+ * Database the storage tests run against, created empty in its own directory and deleted once the test is done,
+ * with the users table most of them fill
+ */
+package test;
+
+import catalog.AttributeSchema;
+import catalog.AttributeType;
+import catalog.Catalog;
+import catalog.TableSchema;
+import storageManager.Attribute;
+import storageManager.Record;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class TestDatabase {
+
+    public static final AttributeSchema ID = new AttributeSchema("id", new AttributeType(AttributeType.TYPE.INT), 0, true, true, false);
+    public static final AttributeSchema NAME = new AttributeSchema("name", new AttributeType(AttributeType.TYPE.CHAR, 8), 1, false, false, true);
+
+    /**
+     * Create the catalog of an empty database, removing whatever an earlier run left in its directory
+     * @param location   directory of the database
+     * @param pageSize   page size
+     * @param bufferSize buffer size
+     * @param indexing   whether tables have a B+ tree index
+     * @return the catalog
+     */
+    public static Catalog create(String location, int pageSize, int bufferSize, boolean indexing) {
+        delete(location);
+        new File(location).mkdirs();
+        return Catalog.createCatalog(location, pageSize, bufferSize, indexing);
+    }
+
+    /**
+     * Delete a database's directory and its files
+     * @param location directory of the database
+     */
+    public static void delete(String location) {
+        File directory = new File(location);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Schema of the users table, an integer primary key id and a char(8) name
+     * @param tableId id of the table
+     * @return the schema
+     */
+    public static TableSchema users(int tableId) {
+        return new TableSchema(tableId, "users", new ArrayList<>(Arrays.asList(ID, NAME)));
+    }
+
+    /**
+     * Record of the users table, named after its id
+     * @param id primary key
+     * @return the record
+     */
+    public static Record user(int id) {
+        String name = String.format("n%07d", id);
+        return new Record(new ArrayList<>(Arrays.asList(new Attribute(ID, id), new Attribute(NAME, name))));
+    }
+
+    /**
+     * Print whether a test passed, a failed test stops the run
+     * @param pass whether the test passed
+     */
+    public static void check(boolean pass) {
+        System.out.println(pass ? "Pass" : "Fail");
+        if (!pass) {
+            System.exit(1);
+        }
+    }
+}